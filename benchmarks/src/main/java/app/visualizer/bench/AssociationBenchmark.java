@@ -0,0 +1,52 @@
+package app.visualizer.bench;
+
+import app.visualizer.model.UmlModel;
+import app.visualizer.parse.AssociationIndex;
+import app.visualizer.parse.JavaExtractor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AssociationIndex#inferAll} alone, on a model parsed once per trial. Scaling {@code fieldsPerType} at a fixed
+ * type count should grow the time linearly; the old all-pairs scan grew with types x types x fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AssociationBenchmark {
+    @Param({"1000", "5000"})
+    public int types;
+
+    @Param({"4", "16", "64"})
+    public int fieldsPerType;
+
+    @Param({"1", "3"})
+    public int genericsDepth;
+
+    private UmlModel model;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path root = SyntheticCodebase.generate(Files.createTempDirectory("uml-bench-assoc"),
+                SyntheticCodebase.Spec.of(types, fieldsPerType, genericsDepth, 4));
+        try {
+            model = new JavaExtractor(Runtime.getRuntime().availableProcessors()).extract(root);
+        } finally {
+            SyntheticCodebase.delete(root);
+        }
+    }
+
+    @Benchmark
+    public List<String[]> inferAll() {
+        AssociationIndex.inferAll(model); // clears and rebuilds model.associations
+        return model.associations;
+    }
+}
@@ -0,0 +1,17 @@
+package app.visualizer.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH entry point that always attaches the gc profiler, so every result carries allocation rate
+ * ({@code gc.alloc.rate.norm}) next to throughput. Accepts the usual JMH arguments, e.g. {@code AssociationBenchmark -p types=5000}.
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder().parent(cli).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,48 @@
+package app.visualizer.bench;
+
+import app.visualizer.parse.JavaExtractor;
+import app.visualizer.render.ImageRenderer;
+import app.visualizer.render.PlantUmlRenderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PlantUML layout and image output for diagrams small enough to lay out in a benchmark loop. Uses the ELK layout so
+ * no Graphviz install is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ImageRenderBenchmark {
+    @Param({"20", "80"})
+    public int types;
+
+    @Param({"PNG", "SVG"})
+    public ImageRenderer.Format format;
+
+    private String puml;
+    private final ImageRenderer renderer = new ImageRenderer();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path root = SyntheticCodebase.generate(Files.createTempDirectory("uml-bench-image"),
+                SyntheticCodebase.Spec.of(types, 4, 1, 3));
+        try {
+            puml = ImageRenderer.withElkLayout(new PlantUmlRenderer().toPlantUml(new JavaExtractor().extract(root)));
+        } finally {
+            SyntheticCodebase.delete(root);
+        }
+    }
+
+    @Benchmark
+    public byte[] render() throws IOException {
+        return renderer.render(puml, format);
+    }
+}
@@ -0,0 +1,49 @@
+package app.visualizer.bench;
+
+import app.visualizer.model.UmlModel;
+import app.visualizer.parse.JavaExtractor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/** Full {@link JavaExtractor#extract} over a generated tree: walk, read, parse and association inference. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParseBenchmark {
+    @Param({"500", "2000"})
+    public int types;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"false", "true"})
+    public boolean shallow;
+
+    private Path root;
+    private JavaExtractor extractor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = SyntheticCodebase.generate(Files.createTempDirectory("uml-bench-parse"),
+                SyntheticCodebase.Spec.of(types, 8, 2, 4));
+        extractor = new JavaExtractor(threads);
+        extractor.setShallow(shallow);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticCodebase.delete(root);
+    }
+
+    @Benchmark
+    public UmlModel extract() throws IOException {
+        return extractor.extract(root);
+    }
+}
@@ -0,0 +1,50 @@
+package app.visualizer.bench;
+
+import app.visualizer.model.UmlModel;
+import app.visualizer.parse.JavaExtractor;
+import app.visualizer.render.PlantUmlRenderer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/** PlantUML text generation: the in-memory String path against streaming into a {@link Writer}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlantUmlTextBenchmark {
+    @Param({"1000", "5000"})
+    public int types;
+
+    private UmlModel model;
+    private final PlantUmlRenderer renderer = new PlantUmlRenderer();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path root = SyntheticCodebase.generate(Files.createTempDirectory("uml-bench-text"),
+                SyntheticCodebase.Spec.of(types, 8, 2, 4));
+        try {
+            model = new JavaExtractor(Runtime.getRuntime().availableProcessors()).extract(root);
+        } finally {
+            SyntheticCodebase.delete(root);
+        }
+    }
+
+    @Benchmark
+    public String toPlantUml() {
+        return renderer.toPlantUml(model);
+    }
+
+    @Benchmark
+    public void renderToWriter(Blackhole bh) throws IOException {
+        renderer.render(model, Writer.nullWriter());
+        bh.consume(model);
+    }
+}
@@ -0,0 +1,76 @@
+package app.visualizer.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-start latency of the CLI as scripts see it: one fresh {@code java} process per invocation turning
+ * {@code example-src} into a {@code .puml}.
+ * <ul>
+ *   <li>{@code fat} - the shaded {@code -all} jar;</li>
+ *   <li>{@code thin} - the fast-start jar with {@code lib/} on its Class-Path;</li>
+ *   <li>{@code cds} - the fast-start jar with its AppCDS archive, as {@code uml-fast.sh} runs it.</li>
+ * </ul>
+ * Needs {@code mvn -Pfast-start -DskipTests package} in the project first; {@code -Duml.project=DIR} points at it
+ * (default {@code ..}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+    @Param({"fat", "thin", "cds"})
+    public String layout;
+
+    private List<String> command;
+    private Path out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path project = Paths.get(System.getProperty("uml.project", "..")).toAbsolutePath().normalize();
+        Path target = project.resolve("target");
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        out = Files.createTempFile("uml-bench-startup", ".puml");
+        command = new ArrayList<>(List.of(java));
+        switch (layout) {
+            case "fat" -> command.addAll(List.of("-jar", require(target.resolve("uml-visualizer-0.1.0-all.jar"))));
+            case "thin" -> command.addAll(List.of("-jar", require(target.resolve("uml-visualizer-0.1.0.jar"))));
+            default -> command.addAll(List.of("-XX:SharedArchiveFile=" + require(target.resolve("uml-visualizer.jsa")),
+                    "-Xshare:auto", "-jar", require(target.resolve("uml-visualizer-0.1.0.jar"))));
+        }
+        command.addAll(List.of(project.resolve("example-src").toString(), out.toString()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(out);
+    }
+
+    @Benchmark
+    public int coldStart() throws IOException, InterruptedException {
+        Process p = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        int exit = p.waitFor();
+        if (exit != 0) throw new IllegalStateException(String.join(" ", command) + " exited with " + exit);
+        return exit;
+    }
+
+    private static String require(Path file) {
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalStateException("Missing " + file + "; build with: mvn -Pfast-start -DskipTests package");
+        }
+        return file.toString();
+    }
+}
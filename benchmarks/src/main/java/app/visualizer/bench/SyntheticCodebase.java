@@ -0,0 +1,129 @@
+package app.visualizer.bench;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+
+/**
+ * Writes a deterministic synthetic source tree: the same {@link Spec} always yields byte-identical files, so numbers
+ * from different runs and branches are comparable. Classes {@code T<i>} form an inheritance tree with the given
+ * fan-out and implement interfaces {@code I<j>}; every field type nests other generated types in
+ * {@code List}/{@code Map}/{@code Optional} up to the generics depth, so association inference has real work to do.
+ */
+public final class SyntheticCodebase {
+
+    public static class Spec {
+        public int types = 1000;
+        public int fieldsPerType = 8;
+        public int methodsPerType = 4;
+        public int genericsDepth = 2;
+        /** Subclasses per class; 0 disables inheritance. */
+        public int inheritanceFanOut = 4;
+        public int packages = 10;
+        public long seed = 42;
+
+        public static Spec of(int types, int fieldsPerType, int genericsDepth, int inheritanceFanOut) {
+            Spec s = new Spec();
+            s.types = types;
+            s.fieldsPerType = fieldsPerType;
+            s.genericsDepth = genericsDepth;
+            s.inheritanceFanOut = inheritanceFanOut;
+            return s;
+        }
+    }
+
+    private SyntheticCodebase() {
+    }
+
+    /** Generates {@code spec} under {@code root} and returns {@code root}. */
+    public static Path generate(Path root, Spec spec) throws IOException {
+        Random rnd = new Random(spec.seed);
+        int interfaces = Math.max(1, spec.types / 8);
+        StringBuilder imports = new StringBuilder("import java.util.*;\n");
+        for (int p = 0; p < spec.packages; p++) {
+            imports.append("import gen.p").append(p).append(".*;\n");
+        }
+
+        for (int j = 0; j < interfaces; j++) {
+            StringBuilder src = header(spec, j, imports);
+            src.append("public interface I").append(j).append(" {\n");
+            for (int m = 0; m < spec.methodsPerType; m++) {
+                src.append("    ").append(typeRef(rnd, spec, interfaces, 0)).append(" op").append(m)
+                        .append("(int n);\n");
+            }
+            src.append("}\n");
+            write(root, spec, j, "I" + j, src);
+        }
+
+        for (int i = 0; i < spec.types; i++) {
+            StringBuilder src = header(spec, i, imports);
+            src.append("public class T").append(i);
+            if (spec.inheritanceFanOut > 0 && i > 0) {
+                src.append(" extends T").append((i - 1) / spec.inheritanceFanOut);
+            }
+            src.append(" implements I").append(rnd.nextInt(interfaces)).append(" {\n");
+            for (int f = 0; f < spec.fieldsPerType; f++) {
+                src.append("    private ").append(typeRef(rnd, spec, interfaces, spec.genericsDepth))
+                        .append(" f").append(f).append(";\n");
+            }
+            for (int m = 0; m < spec.methodsPerType; m++) {
+                src.append("\n    public ").append(typeRef(rnd, spec, interfaces, 0)).append(" op").append(m)
+                        .append("(int n) {\n")
+                        .append("        int acc = 0;\n")
+                        .append("        for (int k = 0; k < n; k++) {\n")
+                        .append("            acc += k * ").append(m + 1).append(";\n")
+                        .append("        }\n")
+                        .append("        if (acc < 0) throw new IllegalStateException();\n")
+                        .append("        return null;\n")
+                        .append("    }\n");
+            }
+            src.append("}\n");
+            write(root, spec, i, "T" + i, src);
+        }
+        return root;
+    }
+
+    /** Deletes a tree made by {@link #generate}. */
+    public static void delete(Path root) throws IOException {
+        if (!Files.exists(root)) return;
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static StringBuilder header(Spec spec, int i, CharSequence imports) {
+        return new StringBuilder("package gen.p").append(i % spec.packages).append(";\n\n").append(imports).append('\n');
+    }
+
+    private static String typeRef(Random rnd, Spec spec, int interfaces, int depth) {
+        String base = rnd.nextInt(4) == 0 ? "I" + rnd.nextInt(interfaces) : "T" + rnd.nextInt(spec.types);
+        for (int d = 0; d < depth; d++) {
+            switch (rnd.nextInt(3)) {
+                case 0 -> base = "List<" + base + ">";
+                case 1 -> base = "Map<String, " + base + ">";
+                default -> base = "Optional<" + base + ">";
+            }
+        }
+        return base;
+    }
+
+    private static void write(Path root, Spec spec, int i, String name, CharSequence src) throws IOException {
+        Path dir = root.resolve("gen").resolve("p" + (i % spec.packages));
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve(name + ".java"), src);
+    }
+}
@@ -1,34 +1,407 @@
 package app.visualizer;
 
+import app.visualizer.analysis.ArchitectureRules;
+import app.visualizer.analysis.StructureAnalysis;
+import app.visualizer.analysis.StructureReport;
+import app.visualizer.cli.RenderCommand;
+import app.visualizer.cli.UmlCommand;
+import app.visualizer.daemon.DaemonClient;
+import app.visualizer.daemon.DiagramDaemon;
+import app.visualizer.diff.DiffRenderer;
+import app.visualizer.diff.ModelDiff;
+import app.visualizer.metrics.Metrics;
+import app.visualizer.model.CompactModel;
+import app.visualizer.model.ModelSnapshot;
 import app.visualizer.model.UmlModel;
+import app.visualizer.parse.IncrementalExtractor;
 import app.visualizer.parse.JavaExtractor;
+import app.visualizer.parse.ParseCache;
+import app.visualizer.parse.SourceWalker;
+import app.visualizer.parse.SpillingExtractor;
+import app.visualizer.partition.DiagramPartitioner;
+import app.visualizer.partition.Partition;
+import app.visualizer.partition.PartitionExporter;
+import app.visualizer.query.NeighborhoodQuery;
+import app.visualizer.render.ImageRenderer;
 import app.visualizer.render.PlantUmlRenderer;
+import app.visualizer.watch.SourceWatcher;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 
 //Old MAIN CLASS: Jose Torres
 public class Main {
+    private static final String USAGE = "Usage: java -jar uml-visualizer.jar extract|render|batch [options]   (see: java -jar uml-visualizer.jar help)\n"
+            + "       java -jar uml-visualizer.jar <src-dir | src.zip | src.jar>[" + File.pathSeparator + "more roots...] [out.puml | out-dir]"
+            + " [--threads N] [--cache-dir DIR] [--ignore pattern,...] [--no-gitignore] [--watch] [--shallow] [--compact] [--partition package|component|size] [--max-nodes N] [--format png,svg]"
+            + " [--profile out.json] [--snapshot out.umls] [--connect] [--port N] [--max-heap-mb N [--spill-dir DIR]]\n"
+            + "       [--focus Type,... [--hops N] [--edges extends,implements,association] [--include glob,...] [--exclude glob,...]]\n"
+            + "       java -jar uml-visualizer.jar <after: src | archive | .umls> out.puml --diff <before: src | archive | .umls> [--diff-depth N]\n"
+            + "       java -jar uml-visualizer.jar <src | archive | .umls> --analyze report.json [--edges ...] [--forbid-cycles package,type]"
+            + " [--max-fan-in N] [--max-fan-out N] [--max-package-fan-in N] [--max-package-fan-out N] [--top N]\n"
+            + "       java -jar uml-visualizer.jar --from-snapshot model.umls [out.puml | out-dir] [render options]\n"
+            + "       java -jar uml-visualizer.jar --render <file.puml | dir>... [--out-dir DIR] [--format png,svg] [--threads N] [--budget-ms N] [--budget-mb N]\n"
+            + "       java -jar uml-visualizer.jar --daemon [--port N] [--threads N] [--cache-dir DIR] [--shallow]\n"
+            + "       java -jar uml-visualizer.jar --daemon-stop [--port N]";
+
     public static void main(String[] args) throws Exception {
         if (args.length < 1) {
-            System.out.println("Usage: java -jar uml-visualizer.jar <path-to-src> [out.puml]");
+            System.out.println(USAGE);
+            return;
+        }
+        if (UmlCommand.handles(args[0])) {
+            int exit = UmlCommand.execute(args);
+            if (exit != 0) System.exit(exit);
+            return;
+        }
+        List<String> positional = new ArrayList<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path cacheDir = null;
+        boolean watch = false;
+        boolean shallow = false;
+        boolean compact = false;
+        DiagramPartitioner.Strategy partition = null;
+        int maxNodes = 0;
+        Set<ImageRenderer.Format> formats = EnumSet.noneOf(ImageRenderer.Format.class);
+        Path profile = null;
+        boolean daemon = false;
+        boolean connect = false;
+        boolean daemonStop = false;
+        int port = DiagramDaemon.DEFAULT_PORT;
+        Path snapshotOut = null;
+        Path fromSnapshot = null;
+        Path diffBase = null;
+        int diffDepth = 1;
+        String focus = null;
+        int hops = 1;
+        String edges = null;
+        String includes = null;
+        String excludes = null;
+        String ignore = null;
+        boolean gitignore = true;
+        boolean render = false;
+        Path outDir = null;
+        long budgetMillis = 60_000;
+        long budgetMb = 0;
+        Path analyze = null;
+        ArchitectureRules rules = new ArchitectureRules();
+        int top = StructureReport.DEFAULT_TOP;
+        long maxHeapMb = 0;
+        Path spillDir = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads", "-j" -> threads = Integer.parseInt(value(args, i++));
+                case "--cache-dir" -> cacheDir = Paths.get(value(args, i++));
+                case "--watch" -> watch = true;
+                case "--shallow" -> shallow = true;
+                case "--compact" -> compact = true;
+                case "--partition" -> partition = DiagramPartitioner.Strategy.valueOf(value(args, i++).toUpperCase());
+                case "--max-nodes" -> maxNodes = Integer.parseInt(value(args, i++));
+                case "--profile" -> profile = Paths.get(value(args, i++));
+                case "--daemon" -> daemon = true;
+                case "--daemon-stop" -> daemonStop = true;
+                case "--connect" -> connect = true;
+                case "--port" -> port = Integer.parseInt(value(args, i++));
+                case "--snapshot" -> snapshotOut = Paths.get(value(args, i++));
+                case "--from-snapshot" -> fromSnapshot = Paths.get(value(args, i++));
+                case "--diff" -> diffBase = Paths.get(value(args, i++));
+                case "--diff-depth" -> diffDepth = Integer.parseInt(value(args, i++));
+                case "--focus" -> focus = value(args, i++);
+                case "--hops" -> hops = Integer.parseInt(value(args, i++));
+                case "--edges" -> edges = value(args, i++);
+                case "--include" -> includes = value(args, i++);
+                case "--exclude" -> excludes = value(args, i++);
+                case "--ignore" -> ignore = value(args, i++);
+                case "--no-gitignore" -> gitignore = false;
+                case "--render" -> render = true;
+                case "--out-dir" -> outDir = Paths.get(value(args, i++));
+                case "--budget-ms" -> budgetMillis = Long.parseLong(value(args, i++));
+                case "--budget-mb" -> budgetMb = Long.parseLong(value(args, i++));
+                case "--analyze" -> analyze = Paths.get(value(args, i++));
+                case "--forbid-cycles" -> rules.forbidCycles(value(args, i++));
+                case "--max-fan-in" -> rules.setMaxFanIn(Integer.parseInt(value(args, i++)));
+                case "--max-fan-out" -> rules.setMaxFanOut(Integer.parseInt(value(args, i++)));
+                case "--max-package-fan-in" -> rules.setMaxPackageFanIn(Integer.parseInt(value(args, i++)));
+                case "--max-package-fan-out" -> rules.setMaxPackageFanOut(Integer.parseInt(value(args, i++)));
+                case "--max-heap-mb" -> maxHeapMb = Long.parseLong(value(args, i++));
+                case "--spill-dir" -> spillDir = Paths.get(value(args, i++));
+                case "--top" -> top = Integer.parseInt(value(args, i++));
+                case "--format" -> {
+                    for (String f : value(args, i++).split(",")) formats.add(ImageRenderer.Format.valueOf(f.trim().toUpperCase()));
+                }
+                case "-h", "--help" -> {
+                    System.out.println(USAGE);
+                    return;
+                }
+                case "-V", "--version" -> {
+                    UmlCommand.execute("--version");
+                    return;
+                }
+                default -> {
+                    if (args[i].startsWith("-") && args[i].length() > 1) {
+                        // a typo such as --treads must not be walked as a source root
+                        System.err.println("Unknown option: '" + args[i] + "'");
+                        System.err.println(USAGE);
+                        System.exit(2);
+                    }
+                    positional.add(args[i]);
+                }
+            }
+        }
+        if (daemonStop) {
+            new DaemonClient(port).shutdown();
+            System.out.println("Daemon on port " + port + " stopped");
+            return;
+        }
+        if (daemon) {
+            runDaemon(port, threads, cacheDir, shallow, walker(threads, ignore, gitignore));
+            return;
+        }
+        if (render) {
+            if (positional.isEmpty()) {
+                System.out.println(USAGE);
+                return;
+            }
+            int failed = RenderCommand.render(positional.stream().map(Paths::get).toList(), outDir, formats, threads,
+                    budgetMillis, budgetMb << 20);
+            if (failed > 0) System.exit(1); // lets CI notice
+            return;
+        }
+        if (fromSnapshot != null) {
+            positional.add(0, fromSnapshot.toString()); // the snapshot stands in for <path-to-src>
+        }
+        if (positional.isEmpty()) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        // several source roots are joined like a classpath and scanned concurrently into one model
+        List<Path> roots = new ArrayList<>();
+        for (String root : positional.get(0).split(File.pathSeparator)) {
+            if (!root.isBlank()) roots.add(Paths.get(root));
+        }
+        Path src = roots.get(0);
+        Path out = (positional.size() > 1) ? Paths.get(positional.get(1))
+                : Paths.get(partition != null ? "diagram-parts" : "diagram.puml");
+        boolean snapshot = fromSnapshot != null || ModelSnapshot.isSnapshot(src);
+        if (roots.size() > 1 && (connect || watch || snapshot)) {
+            throw new IllegalArgumentException("--connect, --watch and snapshots take a single source root");
+        }
+        if (connect) {
+            // thin client: the daemon parses (incrementally) and renders; we only write the bytes
+            String name = out.getFileName().toString().toLowerCase();
+            String format = name.endsWith(".png") ? "png" : name.endsWith(".svg") ? "svg" : "puml";
+            long start = System.nanoTime();
+            Files.write(out, new DaemonClient(port).diagram(src, format));
+            System.out.println("Wrote " + out.toAbsolutePath() + " via daemon in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return;
+        }
+        if (partition == DiagramPartitioner.Strategy.SIZE && maxNodes <= 0) {
+            maxNodes = 200;
+        }
+
+        JavaExtractor extractor = new JavaExtractor(threads);
+        extractor.setShallow(shallow);
+        extractor.setWalker(walker(threads, ignore, gitignore));
+        if (cacheDir != null) {
+            extractor.setCache(ParseCache.open(cacheDir));
+        }
+        Metrics metrics = profile != null ? new Metrics() : null;
+        extractor.setMetrics(metrics);
+        if (maxHeapMb > 0) {
+            // parse, associate and render through sorted runs on disk; the model never exists on the heap
+            if (snapshot || watch || compact || partition != null || diffBase != null || focus != null || analyze != null
+                    || snapshotOut != null || cacheDir != null) {
+                throw new IllegalArgumentException("--max-heap-mb writes one .puml straight from the sources; it cannot be"
+                        + " combined with snapshots, --watch, --compact, --partition, --diff, --focus, --analyze or --cache-dir");
+            }
+            SpillingExtractor spilling = new SpillingExtractor(extractor, maxHeapMb << 20);
+            if (spillDir != null) spilling.setTempDir(spillDir);
+            SpillingExtractor.Result result;
+            try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+                result = spilling.extract(roots, writer);
+            }
+            System.out.println("Wrote " + out.toAbsolutePath() + " (" + result.types() + " types, " + result.associations()
+                    + " associations, " + result.spilledRuns() + " runs / " + (result.spilledBytes() >> 20) + " MB spilled)");
+            writeProfile(metrics, profile);
+            return;
+        }
+        if (watch) {
+            if (compact) {
+                throw new IllegalArgumentException("--watch keeps a plain model up to date; it cannot be combined with --compact");
+            }
+            if (!Files.isDirectory(src)) {
+                throw new IllegalArgumentException("--watch needs a source folder, not " + src);
+            }
+            watch(extractor, src, out, profile);
+            return;
+        }
+        // --compact keeps the model in interned, int-indexed tables (and keeps same-named types apart)
+        UmlModel model;
+        CompactModel compactModel;
+        if (snapshot) {
+            long start = System.nanoTime();
+            model = ModelSnapshot.read(src); // no source tree needed
+            phase(metrics, "snapshot-load", start);
+            compactModel = compact ? CompactModel.of(model) : null;
+        } else {
+            model = compact ? null : extractor.extract(roots);
+            compactModel = compact ? extractor.extractCompact(roots) : null;
+        }
+        if (snapshotOut != null) {
+            long start = System.nanoTime();
+            ModelSnapshot.write(model != null ? model : compactModel.toUmlModel(), snapshotOut);
+            phase(metrics, "snapshot-write", start);
+            System.out.println("Wrote snapshot " + snapshotOut.toAbsolutePath());
+        }
+        if (extractor.getCache() != null) {
+            System.out.println("Parse cache: " + extractor.getCache().getHits() + " hits, "
+                    + extractor.getCache().getMisses() + " misses");
+        }
+
+        if (diffBase != null) {
+            // only what changed between the two models, plus diffDepth edges of unchanged context
+            UmlModel after = compact ? compactModel.toUmlModel() : model;
+            long start = System.nanoTime();
+            UmlModel before = ModelSnapshot.isSnapshot(diffBase) ? ModelSnapshot.read(diffBase) : extractor.extract(diffBase);
+            phase(metrics, "diff-load", start);
+            start = System.nanoTime();
+            ModelDiff diff = ModelDiff.compare(before, after);
+            phase(metrics, "diff", start);
+            start = System.nanoTime();
+            try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+                new DiffRenderer(diffDepth).render(diff, writer);
+            }
+            phase(metrics, "render", start);
+            System.out.println("Diff: " + diff.summary());
+            System.out.println("Wrote " + out.toAbsolutePath());
+            writeProfile(metrics, profile);
             return;
         }
 
-        Path src = Paths.get(args[0]);
-        Path out = (args.length > 1) ? Paths.get(args[1]) : Paths.get("diagram.puml");
+        if (focus != null) {
+            // render only the seeds' neighbourhood; everything after this sees the small model
+            NeighborhoodQuery query = new NeighborhoodQuery(NeighborhoodQuery.list(focus), hops);
+            query.setEdgeKinds(NeighborhoodQuery.edgeKinds(edges));
+            query.setIncludes(NeighborhoodQuery.list(includes));
+            query.setExcludes(NeighborhoodQuery.list(excludes));
+            long start = System.nanoTime();
+            model = compact ? query.run(compactModel) : query.run(model);
+            phase(metrics, "query", start);
+            compact = false;
+            System.out.println("Focus: " + model.types.size() + " types within " + hops + " hops of " + focus);
+        }
+
+        if (analyze != null) {
+            // a report instead of a diagram; the exit code gates the build on the rules
+            CompactModel graph = compact ? compactModel : CompactModel.of(model);
+            long start = System.nanoTime();
+            StructureAnalysis analysis = StructureAnalysis.of(graph, NeighborhoodQuery.edgeKinds(edges));
+            List<ArchitectureRules.Violation> violations = rules.check(analysis);
+            phase(metrics, "analyze", start);
+            StructureReport report = new StructureReport(analysis, violations, top);
+            report.writeJson(analyze);
+            System.out.println("Analysis: " + report.summary());
+            System.out.println("Wrote " + analyze.toAbsolutePath());
+            writeProfile(metrics, profile);
+            for (ArchitectureRules.Violation v : violations) System.err.println("Violation: " + v.message());
+            if (!violations.isEmpty()) System.exit(2); // 1 is taken by crashes
+            return;
+        }
 
-        JavaExtractor extractor = new JavaExtractor();
-        UmlModel model = extractor.extract(src);
+        if (partition != null) {
+            // Partitions are cut from the plain model; --compact still helps by keeping same-named types apart
+            UmlModel full = compact ? compactModel.toUmlModel() : model;
+            long start = System.nanoTime();
+            List<Partition> parts = new DiagramPartitioner(partition, maxNodes).partition(full);
+            phase(metrics, "partition", start);
+            start = System.nanoTime();
+            Path index = new PartitionExporter(threads, formats).export(parts, out);
+            phase(metrics, "export", start);
+            System.out.println("Wrote " + parts.size() + " partitions, index: " + index.toAbsolutePath());
+            writeProfile(metrics, profile);
+            return;
+        }
 
-        String puml = new PlantUmlRenderer().toPlantUml(model);
-        Files.writeString(out, puml, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        // Stream straight into the file instead of materializing the whole diagram as a String first
+        long start = System.nanoTime();
+        try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            if (compact) new PlantUmlRenderer().render(compactModel, writer);
+            else new PlantUmlRenderer().render(model, writer);
+        }
+        phase(metrics, "render", start);
 
         System.out.println("Wrote " + out.toAbsolutePath());
         System.out.println("Open with PlantUML or render via: plantuml " + out.getFileName());
+        writeProfile(metrics, profile);
     }
-}
 
+    private static void runDaemon(int port, int threads, Path cacheDir, boolean shallow, SourceWalker walker) throws Exception {
+        JavaExtractor extractor = new JavaExtractor(threads);
+        extractor.setShallow(shallow);
+        extractor.setWalker(walker);
+        if (cacheDir != null) {
+            extractor.setCache(ParseCache.open(cacheDir));
+        }
+        DiagramDaemon server = new DiagramDaemon(port, extractor, Math.max(2, threads));
+        server.start();
+        System.out.println("Daemon listening on 127.0.0.1:" + server.getPort() + " (stop with --daemon-stop)");
+        server.join();
+    }
 
+    private static SourceWalker walker(int threads, String ignore, boolean gitignore) {
+        SourceWalker walker = new SourceWalker(threads);
+        walker.setUseGitignore(gitignore);
+        walker.setPatterns(NeighborhoodQuery.list(ignore));
+        return walker;
+    }
+
+    private static void phase(Metrics metrics, String name, long startNanos) {
+        if (metrics != null) metrics.addPhase(name, System.nanoTime() - startNanos);
+    }
+
+    private static void writeProfile(Metrics metrics, Path profile) throws IOException {
+        if (metrics == null) return;
+        metrics.writeJson(profile);
+        System.out.println("Profile: " + metrics.summary() + " -> " + profile.toAbsolutePath());
+    }
+
+    private static void watch(JavaExtractor extractor, Path src, Path out, Path profile) throws Exception {
+        IncrementalExtractor incremental = new IncrementalExtractor(extractor, src);
+        PlantUmlRenderer renderer = new PlantUmlRenderer();
+        String[] last = {renderer.toPlantUml(incremental.build())};
+        Files.writeString(out, last[0], StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        System.out.println("Wrote " + out.toAbsolutePath());
+        writeProfile(extractor.getMetrics(), profile);
+
+        SourceWatcher watcher = new SourceWatcher(src, extractor.getWalker(), SourceWatcher.DEFAULT_DEBOUNCE_MILLIS, changed -> {
+            if (!incremental.update(changed)) return;
+            String puml = renderer.toPlantUml(incremental.getModel());
+            if (puml.equals(last[0])) return;
+            last[0] = puml;
+            Files.writeString(out, puml, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            System.out.println("Updated " + out.toAbsolutePath() + " (" + changed.size() + " changed paths)");
+            writeProfile(extractor.getMetrics(), profile); // phases accumulate over the build and every update
+        });
+        System.out.println("Watching " + src.toAbsolutePath() + " for changes (Ctrl+C to stop)");
+        watcher.start();
+        watcher.join();
+    }
+
+    private static String value(String[] args, int i) {
+        if (i + 1 >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i] + "\n" + USAGE);
+        }
+        return args[i + 1];
+    }
+}
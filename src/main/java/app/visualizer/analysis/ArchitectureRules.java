@@ -0,0 +1,105 @@
+package app.visualizer.analysis;
+
+import java.util.*;
+
+/**
+ * Limits a build can be gated on, checked against a {@link StructureAnalysis}. Everything is off until set: cycles
+ * are allowed and fan-in/fan-out limits of 0 mean "no limit".
+ */
+public class ArchitectureRules {
+    /** One broken rule; {@code subject} is a package, a type, or the members of a cycle, sorted and comma-separated. */
+    public record Violation(String rule, String subject, int value, int limit) {
+        public String message() {
+            return switch (rule) {
+                case "package-cycle" -> "Package cycle of " + value + ": " + subject;
+                case "type-cycle" -> "Type cycle of " + value + ": " + subject;
+                default -> rule + " of " + subject + " is " + value + " (limit " + limit + ")";
+            };
+        }
+    }
+
+    private boolean packageCycles = true;
+    private boolean typeCycles = true;
+    private int maxFanIn;
+    private int maxFanOut;
+    private int maxPackageFanIn;
+    private int maxPackageFanOut;
+
+    public void setAllowPackageCycles(boolean allow) {
+        this.packageCycles = allow;
+    }
+
+    public void setAllowTypeCycles(boolean allow) {
+        this.typeCycles = allow;
+    }
+
+    public void setMaxFanIn(int max) {
+        this.maxFanIn = max;
+    }
+
+    public void setMaxFanOut(int max) {
+        this.maxFanOut = max;
+    }
+
+    public void setMaxPackageFanIn(int max) {
+        this.maxPackageFanIn = max;
+    }
+
+    public void setMaxPackageFanOut(int max) {
+        this.maxPackageFanOut = max;
+    }
+
+    /** Reads {@code package,type} (or {@code all}/{@code none}) as the cycle kinds to forbid. */
+    public void forbidCycles(String kinds) {
+        if (kinds == null) return;
+        for (String k : kinds.split(",")) {
+            switch (k.trim().toLowerCase()) {
+                case "", "none" -> { }
+                case "package", "packages" -> packageCycles = false;
+                case "type", "types" -> typeCycles = false;
+                case "all" -> packageCycles = typeCycles = false;
+                default -> throw new IllegalArgumentException("Unknown cycle kind: " + k + " (package, type or all)");
+            }
+        }
+    }
+
+    /** Every violation, cycles first, in a stable order. */
+    public List<Violation> check(StructureAnalysis a) {
+        List<Violation> violations = new ArrayList<>();
+        if (!packageCycles) {
+            for (int[] cycle : a.packageCycles()) {
+                List<String> names = new ArrayList<>();
+                for (int p : cycle) names.add(StructureReport.packageLabel(a.packageName(p)));
+                violations.add(new Violation("package-cycle", members(names), cycle.length, 1));
+            }
+        }
+        if (!typeCycles) {
+            for (int[] cycle : a.typeCycles()) {
+                List<String> names = new ArrayList<>();
+                for (int t : cycle) names.add(a.getModel().qualifiedName(t));
+                violations.add(new Violation("type-cycle", members(names), cycle.length, 1));
+            }
+        }
+        for (int p = 0; p < a.packageCount(); p++) {
+            String name = StructureReport.packageLabel(a.packageName(p));
+            limit(violations, "package-fan-in", name, a.packageFanIn(p), maxPackageFanIn);
+            limit(violations, "package-fan-out", name, a.packageFanOut(p), maxPackageFanOut);
+        }
+        for (int t = 0; t < a.getModel().typeCount(); t++) {
+            if (a.getModel().isExternal(t)) continue;
+            String name = a.getModel().qualifiedName(t);
+            limit(violations, "fan-in", name, a.fanIn(t), maxFanIn);
+            limit(violations, "fan-out", name, a.fanOut(t), maxFanOut);
+        }
+        return violations;
+    }
+
+    private static String members(List<String> names) {
+        Collections.sort(names);
+        return String.join(", ", names);
+    }
+
+    private static void limit(List<Violation> out, String rule, String subject, int value, int limit) {
+        if (limit > 0 && value > limit) out.add(new Violation(rule, subject, value, limit));
+    }
+}
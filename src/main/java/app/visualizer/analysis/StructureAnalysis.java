@@ -0,0 +1,340 @@
+package app.visualizer.analysis;
+
+import app.visualizer.model.CompactModel;
+import app.visualizer.model.CompactModel.EdgeKind;
+import app.visualizer.model.UmlModel;
+
+import java.util.*;
+
+/**
+ * Structural metrics over the type graph of a {@link CompactModel}, all in O(V+E):
+ * <ul>
+ *   <li>strongly connected components (iterative Tarjan, so deep chains cannot overflow the stack), for types and for
+ *       the package graph derived from them;</li>
+ *   <li>fan-out (distinct types/packages depended on) and fan-in (distinct types/packages depending on it);</li>
+ *   <li>a layering of the condensation: layer 0 depends on nothing inside the model, and every type or package sits
+ *       one layer above the highest thing it depends on. All members of a cycle share one layer.</li>
+ * </ul>
+ * Edges point from the dependent to its dependency ({@code Impl -> Base}, {@code Owner -> FieldType}); only the chosen
+ * edge kinds count, and edges to external types (supertypes outside the model) are ignored.
+ */
+public final class StructureAnalysis {
+    private final CompactModel model;
+    private final Graph types;
+    private final Components typeComponents;
+    private final int[] typePackage;
+    private final List<String> packages;
+    private final int[] packageTypeCount;
+    private final Graph packageGraph;
+    private final Components packageComponents;
+
+    private StructureAnalysis(CompactModel model, Set<EdgeKind> kinds) {
+        this.model = model;
+        int n = model.typeCount();
+
+        // one merged, deduplicated adjacency over the chosen kinds; a per-source stamp keeps dedup O(E)
+        int[] offsets = new int[n + 1];
+        int total = 0;
+        for (EdgeKind kind : kinds) total += model.edgeCount(kind);
+        int[] targets = new int[total];
+        int[] stamp = new int[n];
+        int size = 0;
+        for (int t = 0; t < n; t++) {
+            for (EdgeKind kind : kinds) {
+                for (int i = 0; i < model.edgeCount(kind, t); i++) {
+                    int to = model.edgeTarget(kind, t, i);
+                    if (to == t || model.isExternal(to) || stamp[to] == t + 1) continue;
+                    stamp[to] = t + 1;
+                    targets[size++] = to;
+                }
+            }
+            offsets[t + 1] = size;
+        }
+        this.types = new Graph(n, offsets, Arrays.copyOf(targets, size));
+        this.typeComponents = new Components(types);
+
+        // packages in order of first appearance; external types belong to none (-1)
+        Map<String, Integer> packageIds = new HashMap<>();
+        this.packages = new ArrayList<>();
+        this.typePackage = new int[n];
+        for (int t = 0; t < n; t++) {
+            if (model.isExternal(t)) {
+                typePackage[t] = -1;
+                continue;
+            }
+            typePackage[t] = packageIds.computeIfAbsent(model.packageName(t), p -> {
+                packages.add(p);
+                return packages.size() - 1;
+            });
+        }
+        this.packageTypeCount = new int[packages.size()];
+        for (int t = 0; t < n; t++) {
+            if (typePackage[t] >= 0) packageTypeCount[typePackage[t]]++;
+        }
+        this.packageGraph = packageGraph();
+        this.packageComponents = new Components(packageGraph);
+    }
+
+    /** Analyzes every edge kind. */
+    public static StructureAnalysis of(CompactModel model) {
+        return of(model, EnumSet.allOf(EdgeKind.class));
+    }
+
+    public static StructureAnalysis of(CompactModel model, Set<EdgeKind> kinds) {
+        return new StructureAnalysis(model, kinds.isEmpty() ? EnumSet.allOf(EdgeKind.class) : EnumSet.copyOf(kinds));
+    }
+
+    public static StructureAnalysis of(UmlModel model, Set<EdgeKind> kinds) {
+        return of(CompactModel.of(model), kinds);
+    }
+
+    public CompactModel getModel() {
+        return model;
+    }
+
+    // ---- types (ids are CompactModel type ids; external types have no edges and no package)
+
+    public int fanOut(int type) {
+        return types.outDegree(type);
+    }
+
+    public int fanIn(int type) {
+        return types.inDegree(type);
+    }
+
+    public int typeLayer(int type) {
+        return typeComponents.layer(type);
+    }
+
+    /** Number of type layers, i.e. the longest dependency chain plus one (0 for an empty model). */
+    public int typeLayerCount() {
+        return typeComponents.layerCount();
+    }
+
+    /** Type cycles (components with more than one member) as type ids, largest first. */
+    public List<int[]> typeCycles() {
+        return typeComponents.cycles();
+    }
+
+    /** Number of edges between declared types after deduplication. */
+    public int typeEdgeCount() {
+        return types.edgeCount();
+    }
+
+    /** The package index of {@code type}, or -1 for external types. */
+    public int packageOf(int type) {
+        return typePackage[type];
+    }
+
+    // ---- packages (ids index packageName)
+
+    public int packageCount() {
+        return packages.size();
+    }
+
+    /** The package name, {@code ""} for the default package. */
+    public String packageName(int pkg) {
+        return packages.get(pkg);
+    }
+
+    public int packageTypeCount(int pkg) {
+        return packageTypeCount[pkg];
+    }
+
+    public int packageFanOut(int pkg) {
+        return packageGraph.outDegree(pkg);
+    }
+
+    public int packageFanIn(int pkg) {
+        return packageGraph.inDegree(pkg);
+    }
+
+    /** Martin's instability {@code Ce / (Ca + Ce)}: 0 for packages only depended on, 1 for packages only depending. */
+    public double instability(int pkg) {
+        int in = packageFanIn(pkg), out = packageFanOut(pkg);
+        return in + out == 0 ? 0 : (double) out / (in + out);
+    }
+
+    public int packageLayer(int pkg) {
+        return packageComponents.layer(pkg);
+    }
+
+    public int packageLayerCount() {
+        return packageComponents.layerCount();
+    }
+
+    /** Package cycles as package ids, largest first. */
+    public List<int[]> packageCycles() {
+        return packageComponents.cycles();
+    }
+
+    /** Packages the edges of {@code pkg} lead to. */
+    public int[] packageDependencies(int pkg) {
+        return Arrays.copyOfRange(packageGraph.targets, packageGraph.offsets[pkg], packageGraph.offsets[pkg + 1]);
+    }
+
+    // the type graph projected onto packages: one edge per distinct (from, to) package pair, self-loops dropped
+    private Graph packageGraph() {
+        int p = packages.size();
+        int[] stamp = new int[p];
+        Arrays.fill(stamp, -1);
+        // group source types by package so every package's targets are deduplicated with one stamp sweep
+        int[] order = new int[types.n];
+        int[] start = new int[p + 1];
+        for (int t = 0; t < types.n; t++) if (typePackage[t] >= 0) start[typePackage[t] + 1]++;
+        for (int i = 0; i < p; i++) start[i + 1] += start[i];
+        int[] fill = Arrays.copyOf(start, p);
+        for (int t = 0; t < types.n; t++) if (typePackage[t] >= 0) order[fill[typePackage[t]]++] = t;
+
+        int[] offsets = new int[p + 1];
+        int[] targets = new int[types.edgeCount()];
+        int size = 0;
+        for (int from = 0; from < p; from++) {
+            for (int i = start[from]; i < start[from + 1]; i++) {
+                int t = order[i];
+                for (int e = types.offsets[t]; e < types.offsets[t + 1]; e++) {
+                    int to = typePackage[types.targets[e]];
+                    if (to == from || stamp[to] == from) continue;
+                    stamp[to] = from;
+                    targets[size++] = to;
+                }
+            }
+            offsets[from + 1] = size;
+        }
+        return new Graph(p, offsets, Arrays.copyOf(targets, size));
+    }
+
+    /** CSR adjacency with in-degrees. */
+    private static final class Graph {
+        final int n;
+        final int[] offsets;
+        final int[] targets;
+        final int[] inDegree;
+
+        Graph(int n, int[] offsets, int[] targets) {
+            this.n = n;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.inDegree = new int[n];
+            for (int to : targets) inDegree[to]++;
+        }
+
+        int outDegree(int v) {
+            return offsets[v + 1] - offsets[v];
+        }
+
+        int inDegree(int v) {
+            return inDegree[v];
+        }
+
+        int edgeCount() {
+            return targets.length;
+        }
+    }
+
+    /**
+     * Tarjan's strongly connected components with an explicit call stack. Components complete in reverse topological
+     * order (dependencies first), so each component's layer is fixed the moment it completes: every component it has
+     * edges to is already done.
+     */
+    private static final class Components {
+        final int[] component;    // vertex -> component
+        final int[] layer;        // component -> layer
+        final int[] members;      // vertices grouped by component
+        final int[] memberStart;  // component c owns members[memberStart[c]..memberStart[c+1])
+        final int count;
+        final int layerCount;
+
+        Components(Graph g) {
+            int n = g.n;
+            int[] index = new int[n];
+            int[] low = new int[n];
+            Arrays.fill(index, -1);
+            boolean[] onStack = new boolean[n];
+            int[] stack = new int[n];
+            int[] call = new int[n];
+            int[] edge = new int[n];
+            component = new int[n];
+            members = new int[n];
+            int[] starts = new int[n + 1];
+            int[] layers = new int[n];
+            int sp = 0, next = 0, c = 0, filled = 0, maxLayer = -1;
+
+            for (int root = 0; root < n; root++) {
+                if (index[root] >= 0) continue;
+                int cp = 0;
+                call[cp++] = root;
+                index[root] = low[root] = next++;
+                edge[root] = g.offsets[root];
+                stack[sp++] = root;
+                onStack[root] = true;
+                while (cp > 0) {
+                    int v = call[cp - 1];
+                    if (edge[v] < g.offsets[v + 1]) {
+                        int w = g.targets[edge[v]++];
+                        if (index[w] < 0) {
+                            index[w] = low[w] = next++;
+                            edge[w] = g.offsets[w];
+                            stack[sp++] = w;
+                            onStack[w] = true;
+                            call[cp++] = w;
+                        } else if (onStack[w]) {
+                            low[v] = Math.min(low[v], index[w]);
+                        }
+                        continue;
+                    }
+                    cp--;
+                    if (cp > 0) low[call[cp - 1]] = Math.min(low[call[cp - 1]], low[v]);
+                    if (low[v] != index[v]) continue;
+
+                    // v is the root of a component: pop it, then lay it above everything it reaches
+                    starts[c] = filled;
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        component[w] = c;
+                        members[filled++] = w;
+                    } while (w != v);
+                    int l = 0;
+                    for (int i = starts[c]; i < filled; i++) {
+                        int u = members[i];
+                        for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+                            int d = component[g.targets[e]];
+                            if (d != c) l = Math.max(l, layers[d] + 1);
+                        }
+                    }
+                    layers[c] = l;
+                    maxLayer = Math.max(maxLayer, l);
+                    c++;
+                }
+            }
+            starts[c] = filled;
+            count = c;
+            memberStart = Arrays.copyOf(starts, c + 1);
+            layer = Arrays.copyOf(layers, c);
+            layerCount = maxLayer + 1;
+        }
+
+        int layer(int v) {
+            return layer[component[v]];
+        }
+
+        int layerCount() {
+            return layerCount;
+        }
+
+        List<int[]> cycles() {
+            List<int[]> cycles = new ArrayList<>();
+            for (int c = 0; c < count; c++) {
+                if (memberStart[c + 1] - memberStart[c] > 1) {
+                    int[] m = Arrays.copyOfRange(members, memberStart[c], memberStart[c + 1]);
+                    Arrays.sort(m);
+                    cycles.add(m);
+                }
+            }
+            cycles.sort(Comparator.comparingInt((int[] m) -> -m.length).thenComparingInt(m -> m[0]));
+            return cycles;
+        }
+    }
+}
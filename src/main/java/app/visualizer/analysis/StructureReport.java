@@ -0,0 +1,181 @@
+package app.visualizer.analysis;
+
+import app.visualizer.model.CompactModel;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Machine-readable JSON for a {@link StructureAnalysis} and the rule violations found in it: totals, every type and
+ * package cycle, per-package metrics in layer order, the types with the highest fan-in and fan-out, and the
+ * violations. Per-type metrics are limited to the top entries so the report stays small on 100k-type models.
+ */
+public class StructureReport {
+    public static final int DEFAULT_TOP = 25;
+
+    private final StructureAnalysis analysis;
+    private final List<ArchitectureRules.Violation> violations;
+    private final int top;
+
+    public StructureReport(StructureAnalysis analysis, List<ArchitectureRules.Violation> violations, int top) {
+        this.analysis = analysis;
+        this.violations = List.copyOf(violations);
+        this.top = top;
+    }
+
+    public List<ArchitectureRules.Violation> getViolations() {
+        return violations;
+    }
+
+    /** One line for the console. */
+    public String summary() {
+        return declaredTypes() + " types in " + analysis.packageCount() + " packages, "
+                + analysis.typeCycles().size() + " type cycles, " + analysis.packageCycles().size() + " package cycles, "
+                + analysis.typeLayerCount() + " type layers, " + analysis.packageLayerCount() + " package layers, "
+                + violations.size() + " violations";
+    }
+
+    public void writeJson(Path out) throws IOException {
+        try (Writer w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            writeJson(w);
+        }
+    }
+
+    public void writeJson(Writer w) throws IOException {
+        CompactModel model = analysis.getModel();
+        int packageEdges = 0;
+        for (int p = 0; p < analysis.packageCount(); p++) packageEdges += analysis.packageFanOut(p);
+
+        w.write("{\n");
+        w.write("  \"types\": " + declaredTypes() + ",\n");
+        w.write("  \"typeEdges\": " + analysis.typeEdgeCount() + ",\n");
+        w.write("  \"packages\": " + analysis.packageCount() + ",\n");
+        w.write("  \"packageEdges\": " + packageEdges + ",\n");
+        w.write("  \"typeLayers\": " + analysis.typeLayerCount() + ",\n");
+        w.write("  \"packageLayers\": " + analysis.packageLayerCount() + ",\n");
+
+        w.write("  \"packageCycles\": [");
+        String sep = "";
+        for (int[] cycle : analysis.packageCycles()) {
+            List<String> names = new ArrayList<>();
+            for (int p : cycle) names.add(packageLabel(analysis.packageName(p)));
+            Collections.sort(names);
+            w.write(sep + "\n    " + array(names));
+            sep = ",";
+        }
+        w.write(sep.isEmpty() ? "],\n" : "\n  ],\n");
+
+        w.write("  \"typeCycles\": [");
+        sep = "";
+        for (int[] cycle : analysis.typeCycles()) {
+            List<String> names = new ArrayList<>();
+            for (int t : cycle) names.add(model.qualifiedName(t));
+            Collections.sort(names);
+            w.write(sep + "\n    " + array(names));
+            sep = ",";
+        }
+        w.write(sep.isEmpty() ? "],\n" : "\n  ],\n");
+
+        Integer[] packages = new Integer[analysis.packageCount()];
+        for (int p = 0; p < packages.length; p++) packages[p] = p;
+        Arrays.sort(packages, Comparator.comparingInt(analysis::packageLayer)
+                .thenComparing(p -> analysis.packageName(p)));
+        w.write("  \"packageMetrics\": [");
+        sep = "";
+        for (int p : packages) {
+            List<String> deps = new ArrayList<>();
+            for (int d : analysis.packageDependencies(p)) deps.add(packageLabel(analysis.packageName(d)));
+            Collections.sort(deps);
+            w.write(sep + "\n    {\"package\": " + quote(packageLabel(analysis.packageName(p)))
+                    + ", \"types\": " + analysis.packageTypeCount(p)
+                    + ", \"layer\": " + analysis.packageLayer(p)
+                    + ", \"fanIn\": " + analysis.packageFanIn(p)
+                    + ", \"fanOut\": " + analysis.packageFanOut(p)
+                    + ", \"instability\": " + String.format(Locale.ROOT, "%.3f", analysis.instability(p))
+                    + ", \"dependsOn\": " + array(deps) + "}");
+            sep = ",";
+        }
+        w.write(sep.isEmpty() ? "],\n" : "\n  ],\n");
+
+        writeTop(w, "topFanIn", "fanIn", topTypes(analysis::fanIn));
+        writeTop(w, "topFanOut", "fanOut", topTypes(analysis::fanOut));
+
+        w.write("  \"violations\": [");
+        sep = "";
+        for (ArchitectureRules.Violation v : violations) {
+            w.write(sep + "\n    {\"rule\": " + quote(v.rule()) + ", \"subject\": " + quote(v.subject())
+                    + ", \"value\": " + v.value() + ", \"limit\": " + v.limit() + "}");
+            sep = ",";
+        }
+        w.write(sep.isEmpty() ? "]\n" : "\n  ]\n");
+        w.write("}\n");
+    }
+
+    private void writeTop(Writer w, String name, String metric, List<int[]> entries) throws IOException {
+        w.write("  " + quote(name) + ": [");
+        String sep = "";
+        for (int[] e : entries) {
+            w.write(sep + "\n    {\"type\": " + quote(analysis.getModel().qualifiedName(e[0])) + ", \"layer\": "
+                    + analysis.typeLayer(e[0]) + ", " + quote(metric) + ": " + e[1] + "}");
+            sep = ",";
+        }
+        w.write(sep.isEmpty() ? "],\n" : "\n  ],\n");
+    }
+
+    // the `top` declared types with the highest nonzero metric, via a bounded heap: O(V log top)
+    private List<int[]> topTypes(IntUnaryOperator metric) {
+        CompactModel model = analysis.getModel();
+        Comparator<int[]> order = Comparator.comparingInt((int[] e) -> e[1]).thenComparingInt(e -> -e[0]);
+        PriorityQueue<int[]> heap = new PriorityQueue<>(order);
+        for (int t = 0; t < model.typeCount(); t++) {
+            if (model.isExternal(t)) continue;
+            int value = metric.applyAsInt(t);
+            if (value == 0) continue;
+            heap.add(new int[]{t, value});
+            if (heap.size() > top) heap.poll();
+        }
+        List<int[]> result = new ArrayList<>(heap);
+        result.sort(order.reversed());
+        return result;
+    }
+
+    private int declaredTypes() {
+        int declared = 0;
+        for (int t = 0; t < analysis.getModel().typeCount(); t++) if (!analysis.getModel().isExternal(t)) declared++;
+        return declared;
+    }
+
+    static String packageLabel(String pkg) {
+        return pkg.isEmpty() ? "(default package)" : pkg;
+    }
+
+    private static String array(List<String> values) {
+        StringJoiner j = new StringJoiner(", ", "[", "]");
+        for (String v : values) j.add(quote(v));
+        return j.toString();
+    }
+
+    private static String quote(String s) {
+        StringBuilder b = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> b.append("\\\"");
+                case '\\' -> b.append("\\\\");
+                case '\n' -> b.append("\\n");
+                case '\r' -> b.append("\\r");
+                case '\t' -> b.append("\\t");
+                default -> {
+                    if (c < 0x20) b.append(String.format("\\u%04x", (int) c));
+                    else b.append(c);
+                }
+            }
+        }
+        return b.append('"').toString();
+    }
+}
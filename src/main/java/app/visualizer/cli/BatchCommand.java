@@ -0,0 +1,243 @@
+package app.visualizer.cli;
+
+import app.visualizer.metrics.Metrics;
+import app.visualizer.parse.JavaExtractor;
+import app.visualizer.parse.ParseCache;
+import app.visualizer.parse.SourceWalker;
+import app.visualizer.render.BatchRenderer;
+import app.visualizer.render.ImageRenderer;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * {@code batch}: many diagrams in one JVM. Every manifest entry gets its own extractor and metrics, but they all parse
+ * on one shared worker pool (so JIT-compiled parser code and per-thread parsers are reused across roots), and images
+ * are laid out afterwards by one {@link BatchRenderer}. A root that fails is reported and skipped; the others go on.
+ * <p>
+ * Manifest: one {@code SOURCE OUTPUT} pair per line, whitespace-separated, {@code "..."} around paths with spaces,
+ * {@code #} for comments. SOURCE may join several roots with the path separator. Relative paths are resolved against
+ * the manifest's folder.
+ */
+@Command(name = "batch", mixinStandardHelpOptions = true,
+        description = "Extract (and optionally render) every SOURCE OUTPUT pair of a manifest in one JVM.")
+public class BatchCommand implements Callable<Integer> {
+    @Parameters(index = "0", paramLabel = "MANIFEST")
+    Path manifest;
+
+    @Option(names = "--parallel-roots", paramLabel = "N", description = "Roots extracted at once (default: 2).")
+    int parallelRoots = 2;
+
+    @Option(names = "--format", split = ",", paramLabel = "FORMAT", description = "Also render png and/or svg next to each .puml.")
+    Set<ImageRenderer.Format> formats = EnumSet.noneOf(ImageRenderer.Format.class);
+
+    @Option(names = "--budget-ms", paramLabel = "N", description = "Wall time per layout attempt (default: ${DEFAULT-VALUE}).")
+    long budgetMillis = 60_000;
+
+    @Option(names = "--budget-mb", paramLabel = "N", description = "Allocation per layout attempt; 0 for none.")
+    long budgetMb;
+
+    @Option(names = "--summary", paramLabel = "FILE", description = "Also write the per-root summary as tab-separated values.")
+    Path summary;
+
+    @Mixin
+    SourceOptions source;
+
+    /** One manifest line. */
+    record Entry(int line, List<Path> roots, Path out) {
+    }
+
+    /** Outcome of one entry; times in milliseconds, {@code error} is null on success. */
+    static final class Row {
+        final Entry entry;
+        long files, types, walk, parse, associations, write, render, total;
+        String level = "-";
+        String error;
+
+        Row(Entry entry) {
+            this.entry = entry;
+        }
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        List<Entry> entries = readManifest(manifest);
+        if (entries.isEmpty()) {
+            System.err.println("Failed: no entries in " + manifest);
+            return 1;
+        }
+        long start = System.nanoTime();
+        int workers = Math.max(1, source.threads);
+        ExecutorService parsePool = Executors.newFixedThreadPool(workers, daemon("uml-parse-worker"));
+        ExecutorService rootPool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelRoots, entries.size())),
+                daemon("uml-batch-root"));
+        ParseCache cache = source.maxHeapMb > 0 ? null : source.cache(); // the cache holds every file's types
+        SourceWalker walker = source.walker(Math.max(1, workers / Math.max(1, parallelRoots)));
+        List<Row> rows = new ArrayList<>();
+        try {
+            List<Future<Row>> futures = new ArrayList<>();
+            for (Entry e : entries) futures.add(rootPool.submit(() -> extract(e, parsePool, walker, cache)));
+            for (Future<Row> f : futures) rows.add(f.get());
+        } finally {
+            rootPool.shutdownNow();
+            parsePool.shutdownNow();
+        }
+        if (cache != null) {
+            try {
+                cache.save(); // once for every root: each extractor leaves the shared cache to us
+            } catch (IOException e) {
+                System.err.println("Failed to save parse cache: " + e.getMessage());
+            }
+        }
+
+        if (!formats.isEmpty()) render(rows);
+
+        int failed = 0;
+        long sum = 0, types = 0;
+        for (Row r : rows) {
+            if (r.error != null) failed++;
+            sum += r.total;
+            types += r.types;
+        }
+        printSummary(rows);
+        long wall = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Batch: " + (rows.size() - failed) + "/" + rows.size() + " roots, " + types + " types in "
+                + wall + " ms wall (" + sum + " ms summed over roots), " + failed + " failed");
+        if (summary != null) writeSummary(rows, summary);
+        return failed > 0 ? 1 : 0;
+    }
+
+    private Row extract(Entry e, ExecutorService parsePool, SourceWalker walker, ParseCache cache) {
+        Row row = new Row(e);
+        long start = System.nanoTime();
+        Metrics metrics = new Metrics();
+        try {
+            JavaExtractor extractor = new JavaExtractor(source.threads);
+            extractor.setShallow(source.shallow);
+            extractor.setWalker(walker);
+            extractor.setCache(cache);
+            extractor.setAutoSaveCache(false);
+            extractor.setExecutor(parsePool);
+            extractor.setMetrics(metrics);
+            row.types = ExtractCommand.extractTo(extractor, e.roots(), e.out(), source);
+        } catch (Exception | StackOverflowError ex) {
+            // one broken root must not take the whole batch down
+            row.error = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+            System.err.println("Failed " + e.out() + " (manifest line " + e.line() + "): " + row.error);
+        }
+        Map<String, Long> phases = metrics.getPhaseNanos();
+        row.files = metrics.getFiles();
+        row.walk = phases.getOrDefault("walk", 0L) / 1_000_000;
+        row.parse = phases.getOrDefault("parse", 0L) / 1_000_000;
+        row.associations = phases.getOrDefault("associations", 0L) / 1_000_000;
+        row.write = phases.getOrDefault("write", phases.getOrDefault("render", 0L)) / 1_000_000; // spilling renders in its merge
+        row.total = (System.nanoTime() - start) / 1_000_000;
+        return row;
+    }
+
+    // every successful diagram through one renderer, so layout shares a single budgeted pool
+    private void render(List<Row> rows) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        Map<Path, Row> byOut = new LinkedHashMap<>();
+        for (Row r : rows) if (r.error == null) byOut.put(r.entry.out(), r);
+        List<BatchRenderer.Result> results = new BatchRenderer(source.threads, formats, budgetMillis, budgetMb << 20)
+                .render(new ArrayList<>(byOut.keySet()), null);
+        for (BatchRenderer.Result result : results) {
+            Row r = byOut.get(result.input());
+            r.render = result.millis();
+            r.total += result.millis();
+            if (result.failed()) {
+                r.error = "render: " + result.error();
+                System.err.println("Failed to render " + result.input() + ": " + result.error());
+            } else {
+                r.level = result.level().name();
+            }
+        }
+    }
+
+    private static void printSummary(List<Row> rows) {
+        System.out.println(String.format("%-6s %6s %7s %7s %7s %7s %7s %7s %8s  %-10s %s",
+                "status", "files", "types", "walk", "parse", "assoc", "write", "render", "total", "image", "output"));
+        for (Row r : rows) {
+            System.out.println(String.format("%-6s %6d %7d %7d %7d %7d %7d %7d %8d  %-10s %s",
+                    r.error == null ? "ok" : "FAILED", r.files, r.types, r.walk, r.parse, r.associations, r.write,
+                    r.render, r.total, r.level, r.entry.out()));
+        }
+    }
+
+    private static void writeSummary(List<Row> rows, Path file) throws IOException {
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("output\tsource\tstatus\tfiles\ttypes\twalk_ms\tparse_ms\tassociations_ms\twrite_ms\trender_ms\ttotal_ms\timage\terror\n");
+            for (Row r : rows) {
+                StringJoiner roots = new StringJoiner(File.pathSeparator);
+                r.entry.roots().forEach(p -> roots.add(p.toString()));
+                w.write(String.join("\t", r.entry.out().toString(), roots.toString(), r.error == null ? "ok" : "failed",
+                        String.valueOf(r.files), String.valueOf(r.types), String.valueOf(r.walk), String.valueOf(r.parse),
+                        String.valueOf(r.associations), String.valueOf(r.write), String.valueOf(r.render),
+                        String.valueOf(r.total), r.level, r.error == null ? "" : r.error.replaceAll("\\s+", " ")) + "\n");
+            }
+        }
+        System.out.println("Summary: " + file.toAbsolutePath());
+    }
+
+    static List<Entry> readManifest(Path manifest) throws IOException {
+        Path base = manifest.toAbsolutePath().getParent();
+        List<Entry> entries = new ArrayList<>();
+        List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            List<String> fields = fields(line);
+            if (fields.size() != 2) {
+                throw new IllegalArgumentException(manifest + ":" + (i + 1) + ": expected SOURCE OUTPUT, got: " + line);
+            }
+            List<Path> roots = new ArrayList<>();
+            for (String root : fields.get(0).split(File.pathSeparator)) {
+                if (!root.isBlank()) roots.add(base.resolve(root));
+            }
+            entries.add(new Entry(i + 1, roots, base.resolve(fields.get(1))));
+        }
+        return entries;
+    }
+
+    // whitespace-separated fields, "..." keeping spaces together
+    private static List<String> fields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false, inField = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inField = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (inField) fields.add(current.toString());
+                current.setLength(0);
+                inField = false;
+            } else {
+                current.append(c);
+                inField = true;
+            }
+        }
+        if (inField) fields.add(current.toString());
+        return fields;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
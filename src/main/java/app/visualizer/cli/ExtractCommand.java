@@ -0,0 +1,96 @@
+package app.visualizer.cli;
+
+import app.visualizer.metrics.Metrics;
+import app.visualizer.model.CompactModel;
+import app.visualizer.model.UmlModel;
+import app.visualizer.parse.JavaExtractor;
+import app.visualizer.parse.SpillingExtractor;
+import app.visualizer.render.ImageRenderer;
+import app.visualizer.render.PlantUmlRenderer;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * {@code extract}: one diagram from one or more source roots (folders, {@code .zip} or {@code .jar}). Focus, diff,
+ * partition and analysis runs still go through the flag-style CLI.
+ */
+@Command(name = "extract", mixinStandardHelpOptions = true,
+        description = "Extract a class diagram from source roots into a .puml file.")
+public class ExtractCommand implements Callable<Integer> {
+    @Parameters(arity = "1..*", paramLabel = "ROOT", description = "Source folders or archives, merged into one model.")
+    List<Path> roots;
+
+    @Option(names = {"-o", "--out"}, paramLabel = "FILE", description = "Output .puml (default: ${DEFAULT-VALUE}).")
+    Path out = Paths.get("diagram.puml");
+
+    @Option(names = "--format", split = ",", paramLabel = "FORMAT", description = "Also render png and/or svg next to the .puml.")
+    Set<ImageRenderer.Format> formats = EnumSet.noneOf(ImageRenderer.Format.class);
+
+    @Option(names = "--profile", paramLabel = "FILE", description = "Write phase timings as JSON.")
+    Path profile;
+
+    @Mixin
+    SourceOptions source;
+
+    @Override
+    public Integer call() throws IOException {
+        JavaExtractor extractor = new JavaExtractor(source.threads);
+        extractor.setShallow(source.shallow);
+        extractor.setWalker(source.walker(source.threads));
+        extractor.setCache(source.maxHeapMb > 0 ? null : source.cache()); // the cache holds every file's types
+        Metrics metrics = new Metrics();
+        extractor.setMetrics(metrics);
+
+        int types = extractTo(extractor, roots, out, source);
+        System.out.println("Wrote " + out.toAbsolutePath() + " (" + types + " types; " + metrics.summary() + ")");
+        if (profile != null) {
+            metrics.writeJson(profile);
+            System.out.println("Profile: " + profile.toAbsolutePath());
+        }
+        if (formats.isEmpty()) return 0;
+        return RenderCommand.render(List.of(out), null, formats, source.threads, 60_000, 0) > 0 ? 1 : 0;
+    }
+
+    /**
+     * Extracts {@code roots} and streams the diagram into {@code out}, creating its folder; the write is recorded as
+     * the {@code write} phase of the extractor's metrics. @return the number of types in the diagram
+     */
+    static int extractTo(JavaExtractor extractor, List<Path> roots, Path out, SourceOptions options) throws IOException {
+        Path dir = out.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        if (options.maxHeapMb > 0) {
+            if (options.compact) throw new IllegalArgumentException("--max-heap-mb cannot be combined with --compact");
+            SpillingExtractor spilling = new SpillingExtractor(extractor, options.maxHeapMb << 20);
+            if (options.spillDir != null) spilling.setTempDir(options.spillDir);
+            try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+                return spilling.extract(roots, writer).types(); // rendering happens inside the merge
+            }
+        }
+        boolean compact = options.compact;
+        UmlModel model = compact ? null : extractor.extract(roots);
+        CompactModel compactModel = compact ? extractor.extractCompact(roots) : null;
+        long start = System.nanoTime();
+        try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            if (compact) new PlantUmlRenderer().render(compactModel, writer);
+            else new PlantUmlRenderer().render(model, writer);
+        }
+        if (extractor.getMetrics() != null) extractor.getMetrics().addPhase("write", System.nanoTime() - start);
+        if (!compact) return model.types.size();
+        int declared = 0;
+        for (int t = 0; t < compactModel.typeCount(); t++) if (!compactModel.isExternal(t)) declared++;
+        return declared;
+    }
+}
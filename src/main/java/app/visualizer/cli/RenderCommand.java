@@ -0,0 +1,64 @@
+package app.visualizer.cli;
+
+import app.visualizer.render.BatchRenderer;
+import app.visualizer.render.ImageRenderer;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/** {@code render}: headless PNG/SVG export of existing {@code .puml} files with per-diagram budgets. */
+@Command(name = "render", mixinStandardHelpOptions = true,
+        description = "Render .puml files (or every .puml under a folder) to images.")
+public class RenderCommand implements Callable<Integer> {
+    @Parameters(arity = "1..*", paramLabel = "INPUT", description = ".puml files or folders.")
+    List<Path> inputs;
+
+    @Option(names = "--out-dir", paramLabel = "DIR", description = "Where images go (default: next to each input).")
+    Path outDir;
+
+    @Option(names = "--format", split = ",", paramLabel = "FORMAT", description = "png, svg (default: png).")
+    Set<ImageRenderer.Format> formats = EnumSet.noneOf(ImageRenderer.Format.class);
+
+    @Option(names = {"-j", "--threads"}, paramLabel = "N", description = "Diagrams laid out at once (default: all cores).")
+    int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = "--budget-ms", paramLabel = "N", description = "Wall time per layout attempt (default: ${DEFAULT-VALUE}).")
+    long budgetMillis = 60_000;
+
+    @Option(names = "--budget-mb", paramLabel = "N", description = "Allocation per layout attempt; 0 for none.")
+    long budgetMb;
+
+    @Override
+    public Integer call() throws IOException {
+        return render(inputs, outDir, formats, threads, budgetMillis, budgetMb << 20) > 0 ? 1 : 0;
+    }
+
+    /** Renders and prints one line per diagram plus a summary; @return how many inputs produced no image at all. */
+    public static int render(List<Path> paths, Path outDir, Set<ImageRenderer.Format> formats, int threads,
+                             long budgetMillis, long budgetBytes) throws IOException {
+        System.setProperty("java.awt.headless", "true"); // before PlantUML touches AWT
+        List<Path> inputs = BatchRenderer.inputs(paths);
+        long start = System.nanoTime();
+        List<BatchRenderer.Result> results = new BatchRenderer(threads, formats, budgetMillis, budgetBytes).render(inputs, outDir);
+        int degraded = 0, failed = 0;
+        for (BatchRenderer.Result r : results) {
+            if (r.failed()) {
+                failed++;
+                System.err.println("FAILED   " + r.input() + " (" + r.millis() + " ms): " + r.error());
+            } else {
+                if (r.level() != BatchRenderer.Level.FULL) degraded++;
+                System.out.println(String.format("%-10s %s (%d ms)", r.level(), r.input(), r.millis()));
+            }
+        }
+        System.out.println("Rendered " + (results.size() - failed) + "/" + results.size() + " diagrams (" + degraded
+                + " degraded, " + failed + " failed) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return failed;
+    }
+}
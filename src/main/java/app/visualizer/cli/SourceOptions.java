@@ -0,0 +1,49 @@
+package app.visualizer.cli;
+
+import app.visualizer.parse.ParseCache;
+import app.visualizer.parse.SourceWalker;
+import picocli.CommandLine.Option;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Parsing options shared by {@code extract} and {@code batch}. */
+class SourceOptions {
+    @Option(names = {"-j", "--threads"}, paramLabel = "N", description = "Parser workers (default: all cores).")
+    int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = "--cache-dir", paramLabel = "DIR", description = "Persistent per-file parse cache.")
+    Path cacheDir;
+
+    @Option(names = "--shallow", description = "Skip method bodies while parsing.")
+    boolean shallow;
+
+    @Option(names = "--compact", description = "Keep the model in compact tables; same-named types stay apart.")
+    boolean compact;
+
+    @Option(names = "--ignore", split = ",", paramLabel = "PATTERN", description = "Extra gitignore-style excludes; !pattern re-includes.")
+    List<String> ignore = new ArrayList<>();
+
+    @Option(names = "--no-gitignore", description = "Do not honour .gitignore files.")
+    boolean noGitignore;
+
+    @Option(names = "--max-heap-mb", paramLabel = "N", description = "Bound the model's heap: records beyond N MB spill to sorted runs on disk.")
+    long maxHeapMb;
+
+    @Option(names = "--spill-dir", paramLabel = "DIR", description = "Where spill runs go (default: the temp folder).")
+    Path spillDir;
+
+    SourceWalker walker(int walkerThreads) {
+        SourceWalker walker = new SourceWalker(walkerThreads);
+        walker.setUseGitignore(!noGitignore);
+        walker.setPatterns(ignore);
+        return walker;
+    }
+
+    /** @return the opened cache, or {@code null} without {@code --cache-dir} */
+    ParseCache cache() throws IOException {
+        return cacheDir != null ? ParseCache.open(cacheDir) : null;
+    }
+}
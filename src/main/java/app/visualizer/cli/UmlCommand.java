@@ -0,0 +1,45 @@
+package app.visualizer.cli;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Spec;
+
+import java.util.Set;
+
+/**
+ * Top of the subcommand CLI ({@code extract}, {@code render}, {@code batch}). {@link app.visualizer.Main} hands over
+ * when the first argument names a subcommand and keeps parsing the older flag style itself otherwise, so existing
+ * scripts keep working.
+ */
+@Command(name = "uml-visualizer", mixinStandardHelpOptions = true, version = "uml-visualizer 0.1.0",
+        description = "Class diagrams from Java sources.",
+        footer = "%nWithout a command, the flag-style CLI runs: uml-visualizer <src> [out.puml] [--option ...] (any unknown option prints its usage).",
+        subcommands = {ExtractCommand.class, RenderCommand.class, BatchCommand.class, CommandLine.HelpCommand.class})
+public class UmlCommand implements Runnable {
+    private static final Set<String> SUBCOMMANDS = Set.of("extract", "render", "batch", "help", "-h", "--help", "-V", "--version");
+
+    @Spec
+    CommandSpec spec;
+
+    /** Whether {@code firstArg} selects a subcommand (or top-level help/version) rather than the flag-style CLI. */
+    public static boolean handles(String firstArg) {
+        return SUBCOMMANDS.contains(firstArg);
+    }
+
+    /** @return the process exit code: 0 on success, 1 on failures, 2 on usage errors */
+    public static int execute(String... args) {
+        CommandLine cli = new CommandLine(new UmlCommand());
+        cli.setCaseInsensitiveEnumValuesAllowed(true);
+        cli.setExecutionExceptionHandler((e, commandLine, parseResult) -> {
+            System.err.println("Failed: " + e.getMessage());
+            return 1;
+        });
+        return cli.execute(args);
+    }
+
+    @Override
+    public void run() {
+        throw new CommandLine.ParameterException(spec.commandLine(), "Missing subcommand: extract, render or batch");
+    }
+}
@@ -0,0 +1,65 @@
+package app.visualizer.daemon;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Thin client for {@link DiagramDaemon}; used by {@code Main --connect}. Authenticates with the token the daemon wrote
+ * to {@link DiagramDaemon#tokenFile}, so only the user who started the daemon can use it.
+ */
+public class DaemonClient {
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private final String base;
+    private final Path tokenFile;
+
+    public DaemonClient(int port) {
+        this.base = "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port;
+        this.tokenFile = DiagramDaemon.tokenFile(port);
+    }
+
+    /** @param format {@code puml}, {@code png} or {@code svg} */
+    public byte[] diagram(Path root, String format) throws IOException, InterruptedException {
+        String uri = base + "/diagram?root=" + URLEncoder.encode(root.toAbsolutePath().normalize().toString(), StandardCharsets.UTF_8)
+                + "&format=" + format;
+        return send(HttpRequest.newBuilder(URI.create(uri)).GET());
+    }
+
+    public String status() throws IOException, InterruptedException {
+        return new String(send(HttpRequest.newBuilder(URI.create(base + "/status")).GET()), StandardCharsets.UTF_8);
+    }
+
+    public void shutdown() throws IOException, InterruptedException {
+        send(HttpRequest.newBuilder(URI.create(base + "/shutdown")).POST(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    private byte[] send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        String token;
+        try {
+            token = Files.readString(tokenFile, StandardCharsets.US_ASCII).trim();
+        } catch (NoSuchFileException e) {
+            throw new IOException("No daemon token at " + tokenFile + " (start a daemon with --daemon)", e);
+        }
+        HttpResponse<byte[]> response;
+        try {
+            response = http.send(request.header(DiagramDaemon.TOKEN_HEADER, token).build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (ConnectException e) {
+            throw new IOException("No daemon listening at " + base + " (start one with --daemon)", e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Daemon returned " + response.statusCode() + ": "
+                    + new String(response.body(), StandardCharsets.UTF_8).trim());
+        }
+        return response.body();
+    }
+}
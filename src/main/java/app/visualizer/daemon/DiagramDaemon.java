@@ -0,0 +1,303 @@
+package app.visualizer.daemon;
+
+import app.visualizer.model.UmlModel;
+import app.visualizer.parse.IncrementalExtractor;
+import app.visualizer.parse.JavaExtractor;
+import app.visualizer.render.ImageRenderer;
+import app.visualizer.render.PlantUmlRenderer;
+import app.visualizer.render.RenderCache;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Resident diagram server on loopback HTTP. Keeps one warm {@link JavaExtractor}, {@link PlantUmlRenderer} and
+ * {@link RenderCache} for its whole life, plus a model per source root. Every request re-stats the root's files and
+ * re-parses only those whose size or mtime changed, so repeat requests skip JVM start-up, class loading, JIT warm-up
+ * and the full parse.
+ * <ul>
+ *   <li>{@code GET /diagram?root=<abs path>&format=puml|png|svg}</li>
+ *   <li>{@code GET /status}</li>
+ *   <li>{@code POST /shutdown}</li>
+ * </ul>
+ * Only binds the loopback interface, and loopback alone does not protect it: any local process and any browser page
+ * (via cross-site requests or DNS rebinding) can reach the port. So every request must also carry
+ * {@value #TOKEN_HEADER} with the random token the daemon writes to {@link #tokenFile} (owner-only permissions), and
+ * a {@code Host} header naming the loopback address; anything else is rejected before a root is touched. At most
+ * {@link #MAX_ROOTS} roots are kept warm, least recently used first out.
+ */
+public class DiagramDaemon implements AutoCloseable {
+    public static final int DEFAULT_PORT = 7787;
+    public static final int MAX_ROOTS = 16;
+    static final String TOKEN_HEADER = "X-Uml-Token";
+    private static final long IMAGE_CACHE_BYTES = 128L << 20;
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final JavaExtractor extractor;
+    private final PlantUmlRenderer renderer = new PlantUmlRenderer();
+    private final RenderCache images = new RenderCache(IMAGE_CACHE_BYTES);
+    private final Map<Path, RootState> roots = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, RootState> eldest) {
+            return size() > MAX_ROOTS;
+        }
+    });
+    private final byte[] token;
+    private Path tokenPath;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final long startMillis = System.currentTimeMillis();
+
+    public DiagramDaemon(int port, JavaExtractor extractor, int handlerThreads) throws IOException {
+        this.extractor = extractor;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        handlers = Executors.newFixedThreadPool(Math.max(1, handlerThreads), r -> {
+            Thread t = new Thread(r, "uml-daemon-handler");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(handlers);
+        server.createContext("/diagram", this::diagram);
+        server.createContext("/status", this::status);
+        server.createContext("/shutdown", this::shutdown);
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        token = HexFormat.of().formatHex(random).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** Where the daemon on {@code port} keeps its token: {@code ~/.uml-visualizer/daemon-<port>.token}. */
+    public static Path tokenFile(int port) {
+        return Paths.get(System.getProperty("user.home"), ".uml-visualizer", "daemon-" + port + ".token");
+    }
+
+    /** Writes the token file (readable by the owner only) and starts serving. */
+    public void start() throws IOException {
+        tokenPath = tokenFile(getPort());
+        Files.createDirectories(tokenPath.getParent());
+        Files.deleteIfExists(tokenPath);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(tokenPath, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(tokenPath); // Windows: the user profile's ACL already keeps other users out
+        }
+        Files.write(tokenPath, token);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /** Blocks until {@code /shutdown} or {@link #close()}. */
+    public void join() throws InterruptedException {
+        stopped.await();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+        try {
+            if (tokenPath != null) Files.deleteIfExists(tokenPath);
+        } catch (IOException e) {
+            System.err.println("Failed to delete " + tokenPath + ": " + e.getMessage());
+        }
+        stopped.countDown();
+    }
+
+    // rejects requests without the token or for a non-loopback Host (DNS rebinding); true if the request may proceed
+    private boolean authorized(HttpExchange ex) throws IOException {
+        String host = ex.getRequestHeaders().getFirst("Host");
+        String port = ":" + getPort();
+        if (host == null || !(host.equals("localhost" + port) || host.equals("127.0.0.1" + port) || host.equals("[::1]" + port))) {
+            send(ex, 403, "text/plain", "Forbidden host\n".getBytes(StandardCharsets.UTF_8));
+            return false;
+        }
+        String presented = ex.getRequestHeaders().getFirst(TOKEN_HEADER);
+        if (presented == null || !MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.US_ASCII))) {
+            send(ex, 401, "text/plain", ("Missing or wrong " + TOKEN_HEADER + "\n").getBytes(StandardCharsets.UTF_8));
+            return false;
+        }
+        return true;
+    }
+
+    private void diagram(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (!authorized(ex)) return;
+            Map<String, String> q = query(ex);
+            String rootParam = q.get("root");
+            if (rootParam == null || rootParam.isBlank()) {
+                send(ex, 400, "text/plain", "Missing root parameter\n".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            Path root = Paths.get(rootParam).toAbsolutePath().normalize();
+            if (!Files.isDirectory(root) && !JavaExtractor.isArchive(root)) {
+                send(ex, 404, "text/plain", ("No source folder or archive at " + root + "\n").getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            String format = q.getOrDefault("format", "puml").toLowerCase(Locale.ROOT);
+            try {
+                long start = System.nanoTime();
+                RootState state = roots.computeIfAbsent(root, RootState::new);
+                String puml = state.puml();
+                ex.getResponseHeaders().add("X-Elapsed-Millis", String.valueOf((System.nanoTime() - start) / 1_000_000));
+                switch (format) {
+                    case "puml" -> send(ex, 200, "text/plain; charset=utf-8", puml.getBytes(StandardCharsets.UTF_8));
+                    case "png" -> send(ex, 200, "image/png", images.render(ImageRenderer.withElkLayout(puml), ImageRenderer.Format.PNG));
+                    case "svg" -> send(ex, 200, "image/svg+xml", images.render(ImageRenderer.withElkLayout(puml), ImageRenderer.Format.SVG));
+                    default -> send(ex, 400, "text/plain", ("Unknown format " + format + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (Exception e) {
+                System.err.println("Failed to serve " + root + ": " + e.getMessage());
+                send(ex, 500, "text/plain", ("Failed: " + e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private void status(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (!authorized(ex)) return;
+            StringBuilder s = new StringBuilder();
+            s.append("uptimeSeconds=").append((System.currentTimeMillis() - startMillis) / 1000).append('\n');
+            s.append("roots=").append(roots.size()).append('\n');
+            s.append("maxRoots=").append(MAX_ROOTS).append('\n');
+            synchronized (roots) {
+                roots.forEach((root, state) -> s.append("root ").append(root).append(" requests=").append(state.requests)
+                        .append(" reparses=").append(state.reparses).append('\n'));
+            }
+            s.append("imageCache=").append(images.getHits()).append(" hits, ").append(images.getMisses()).append(" misses\n");
+            send(ex, 200, "text/plain; charset=utf-8", s.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void shutdown(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (!authorized(ex)) return;
+            if (!"POST".equals(ex.getRequestMethod())) {
+                send(ex, 405, "text/plain", "Use POST\n".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            send(ex, 200, "text/plain", "Stopping\n".getBytes(StandardCharsets.UTF_8));
+        }
+        Thread stopper = new Thread(this::close, "uml-daemon-stop"); // not from inside a handler thread
+        stopper.start();
+    }
+
+    /** Model and rendered text for one root, refreshed from file stamps on every request. */
+    private final class RootState {
+        private final Path root;
+        private IncrementalExtractor incremental;     // source folders
+        private UmlModel archiveModel;                // archives are re-read whole when they change
+        private Map<Path, long[]> stamps = Map.of();
+        private String puml;
+        private int requests, reparses;
+
+        RootState(Path root) {
+            this.root = root;
+        }
+
+        synchronized String puml() throws IOException {
+            requests++;
+            if (refresh() || puml == null) {
+                puml = renderer.toPlantUml(incremental != null ? incremental.getModel() : archiveModel);
+            }
+            return puml;
+        }
+
+        // @return true if the model changed; stamps only move once the model has caught up with them, so a failed
+        // refresh is retried by the next request
+        private boolean refresh() throws IOException {
+            Map<Path, long[]> now = stat();
+            if (incremental == null && archiveModel == null) {
+                reparses++;
+                if (Files.isDirectory(root)) {
+                    IncrementalExtractor built = new IncrementalExtractor(extractor, root);
+                    built.build();
+                    incremental = built;
+                } else {
+                    archiveModel = extractor.extract(root);
+                }
+                stamps = now;
+                return true;
+            }
+            List<Path> changed = new ArrayList<>();
+            now.forEach((p, s) -> {
+                long[] old = stamps.get(p);
+                if (old == null || old[0] != s[0] || old[1] != s[1]) changed.add(p);
+            });
+            stamps.keySet().stream().filter(p -> !now.containsKey(p)).forEach(changed::add);
+            if (changed.isEmpty()) return false;
+            reparses++;
+            boolean modelChanged = true;
+            if (incremental != null) {
+                try {
+                    modelChanged = incremental.update(changed);
+                } catch (IOException | RuntimeException e) {
+                    incremental = null; // possibly half-applied: the next request rebuilds from scratch
+                    throw e;
+                }
+            } else {
+                archiveModel = extractor.extract(root);
+            }
+            stamps = now;
+            return modelChanged;
+        }
+
+        // size and mtime of every source file (or of the archive itself)
+        private Map<Path, long[]> stat() throws IOException {
+            Map<Path, long[]> result = new HashMap<>();
+            if (!Files.isDirectory(root)) {
+                result.put(root, stamp(root));
+                return result;
+            }
+            for (Path p : extractor.getWalker().list(root)) {
+                try {
+                    result.put(p.toAbsolutePath().normalize(), stamp(p));
+                } catch (NoSuchFileException gone) {
+                    // deleted mid-walk; reported as removed next time
+                }
+            }
+            return result;
+        }
+
+        private long[] stamp(Path p) throws IOException {
+            BasicFileAttributes a = Files.readAttributes(p, BasicFileAttributes.class);
+            return new long[]{a.size(), a.lastModifiedTime().toMillis()};
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange ex) {
+        Map<String, String> q = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null) return q;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                q.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return q;
+    }
+
+    private static void send(HttpExchange ex, int status, String contentType, byte[] body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", contentType);
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package app.visualizer.diff;
+
+import app.visualizer.model.UmlModel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Draws a {@link ModelDiff} as PlantUML: only the changed types plus every type within {@code neighborhood} edges of
+ * one (in either model), with added parts green, removed parts red and struck through, and changed types yellow.
+ * Unchanged neighbours are drawn plain for context.
+ */
+public class DiffRenderer {
+    private static final String ADDED = "#2e7d32", REMOVED = "#c62828";
+    private static final String ADDED_FILL = "#palegreen", REMOVED_FILL = "#mistyrose", CHANGED_FILL = "#lightyellow";
+
+    private final int neighborhood;
+
+    /** @param neighborhood how many edges of unchanged context to keep around each change; 0 shows changes only */
+    public DiffRenderer(int neighborhood) {
+        this.neighborhood = Math.max(0, neighborhood);
+    }
+
+    public String toPlantUml(ModelDiff diff) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            render(diff, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    public void render(ModelDiff diff, Appendable out) throws IOException {
+        Set<String> removed = new HashSet<>(diff.removedTypes);
+        Set<String> added = new HashSet<>(diff.addedTypes);
+        Set<String> shown = select(diff);
+
+        out.append("@startuml\n");
+        out.append("skinparam classAttributeIconSize 0\n");
+        for (String name : shown) {
+            boolean isRemoved = removed.contains(name);
+            UmlModel.UmlType t = isRemoved ? diff.before.types.get(name) : diff.after.types.get(name);
+            if (t == null) continue; // an edge target outside both models
+            ModelDiff.TypeChange change = diff.changedTypes.get(name);
+            String fill = isRemoved ? REMOVED_FILL : added.contains(name) ? ADDED_FILL : change != null ? CHANGED_FILL : null;
+            String tag = isRemoved ? " <<removed>>" : added.contains(name) ? " <<added>>" : change != null ? " <<changed>>" : "";
+
+            switch (t.kind == null ? UmlModel.UmlType.Kind.CLASS : t.kind) {
+                case INTERFACE -> out.append("interface ").append(name);
+                case ENUM      -> out.append("enum ").append(name);
+                case RECORD    -> out.append("class ").append(name).append(" <<record>>");
+                default        -> out.append("class ").append(name);
+            }
+            out.append(tag);
+            if (fill != null) out.append(' ').append(fill);
+            out.append(" {\n");
+            if (change != null && change.kindChanged()) {
+                out.append("  <color:").append(ADDED).append(">was ").append(String.valueOf(change.kindBefore)).append("</color>\n");
+            }
+            members(out, t.fields, change == null ? List.of() : change.addedFields,
+                    change == null ? List.of() : change.removedFields, isRemoved, added.contains(name));
+            members(out, t.methods, change == null ? List.of() : change.addedMethods,
+                    change == null ? List.of() : change.removedMethods, isRemoved, added.contains(name));
+            out.append("}\n");
+        }
+
+        // every edge between shown types, from both models, styled by whether it was added or removed
+        Set<ModelDiff.Edge> addedEdges = new HashSet<>(diff.addedEdges);
+        Set<ModelDiff.Edge> removedEdges = new HashSet<>(diff.removedEdges);
+        Set<ModelDiff.Edge> all = new LinkedHashSet<>(ModelDiff.edges(diff.after));
+        all.addAll(diff.removedEdges);
+        for (ModelDiff.Edge e : all) {
+            if (!shown.contains(e.from()) || !shown.contains(e.to())) continue;
+            String color = addedEdges.contains(e) ? "[" + ADDED + "]" : removedEdges.contains(e) ? "[" + REMOVED + ",dashed]" : "";
+            switch (e.kind()) {
+                case EXTENDS -> out.append(e.to()).append(" <|-").append(color).append("- ").append(e.from()).append("\n");
+                case IMPLEMENTS -> out.append(e.to()).append(" <|.").append(color).append(". ").append(e.from()).append("\n");
+                default -> out.append(e.from()).append(" -").append(color).append("-> ").append(e.to()).append("\n");
+            }
+        }
+
+        out.append("legend right\n");
+        out.append("  <color:").append(ADDED).append(">added</color> | <color:").append(REMOVED)
+                .append(">--removed--</color> | <back:lightyellow>changed</back>\n");
+        out.append("  ").append(diff.summary()).append("\n");
+        out.append("endlegend\n");
+        out.append("@enduml\n");
+    }
+
+    private static void members(Appendable out, List<String> current, List<String> addedMembers,
+                                List<String> removedMembers, boolean typeRemoved, boolean typeAdded) throws IOException {
+        Set<String> addedSet = new HashSet<>(addedMembers);
+        for (String m : current) {
+            if (typeRemoved) {
+                out.append("  <color:").append(REMOVED).append(">--").append(m).append("--</color>\n");
+            } else if (typeAdded || addedSet.contains(m)) {
+                out.append("  <color:").append(ADDED).append(">").append(m).append("</color>\n");
+            } else {
+                out.append("  ").append(m).append("\n");
+            }
+        }
+        for (String m : removedMembers) {
+            out.append("  <color:").append(REMOVED).append(">--").append(m).append("--</color>\n");
+        }
+    }
+
+    /** Changed types, then breadth-first outwards over the union of both models' edges, in discovery order. */
+    private Set<String> select(ModelDiff diff) {
+        Set<String> seeds = new LinkedHashSet<>(diff.addedTypes);
+        seeds.addAll(diff.removedTypes);
+        seeds.addAll(diff.changedTypes.keySet());
+        Set<String> shown = new LinkedHashSet<>(seeds);
+        if (neighborhood == 0 || seeds.isEmpty()) return shown;
+
+        Map<String, List<String>> adj = new HashMap<>();
+        for (ModelDiff.Edge e : ModelDiff.edges(diff.after)) link(adj, e);
+        for (ModelDiff.Edge e : diff.removedEdges) link(adj, e);
+        List<String> frontier = new ArrayList<>(seeds);
+        for (int depth = 0; depth < neighborhood && !frontier.isEmpty(); depth++) {
+            List<String> next = new ArrayList<>();
+            for (String t : frontier) {
+                for (String n : adj.getOrDefault(t, List.of())) {
+                    if (shown.add(n)) next.add(n);
+                }
+            }
+            frontier = next;
+        }
+        return shown;
+    }
+
+    private static void link(Map<String, List<String>> adj, ModelDiff.Edge e) {
+        adj.computeIfAbsent(e.from(), k -> new ArrayList<>()).add(e.to());
+        adj.computeIfAbsent(e.to(), k -> new ArrayList<>()).add(e.from());
+    }
+}
@@ -0,0 +1,126 @@
+package app.visualizer.diff;
+
+import app.visualizer.model.UmlModel;
+
+import java.util.*;
+
+/**
+ * Structural difference between two {@link UmlModel}s: added, removed and changed types (kind or members) plus added
+ * and removed extends/implements/association edges. Types are matched by their model key and members by their text,
+ * so {@link #compare} is a handful of hash lookups per type, member and edge: linear in the size of both models.
+ */
+public class ModelDiff {
+    public enum EdgeKind { EXTENDS, IMPLEMENTS, ASSOCIATION }
+
+    public record Edge(String from, String to, EdgeKind kind) {
+    }
+
+    /** Member-level changes of a type present in both models. */
+    public static class TypeChange {
+        public UmlModel.UmlType.Kind kindBefore;
+        public UmlModel.UmlType.Kind kindAfter;
+        public final List<String> addedFields = new ArrayList<>();
+        public final List<String> removedFields = new ArrayList<>();
+        public final List<String> addedMethods = new ArrayList<>();
+        public final List<String> removedMethods = new ArrayList<>();
+        public boolean edgesChanged;
+
+        public boolean kindChanged() {
+            return kindBefore != kindAfter;
+        }
+
+        boolean isEmpty() {
+            return !kindChanged() && !edgesChanged && addedFields.isEmpty() && removedFields.isEmpty()
+                    && addedMethods.isEmpty() && removedMethods.isEmpty();
+        }
+    }
+
+    public final UmlModel before;
+    public final UmlModel after;
+    public final List<String> addedTypes = new ArrayList<>();
+    public final List<String> removedTypes = new ArrayList<>();
+    public final Map<String, TypeChange> changedTypes = new LinkedHashMap<>();
+    public final List<Edge> addedEdges = new ArrayList<>();
+    public final List<Edge> removedEdges = new ArrayList<>();
+
+    private ModelDiff(UmlModel before, UmlModel after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public static ModelDiff compare(UmlModel before, UmlModel after) {
+        ModelDiff d = new ModelDiff(before, after);
+        for (String name : before.types.keySet()) {
+            if (!after.types.containsKey(name)) d.removedTypes.add(name);
+        }
+        for (Map.Entry<String, UmlModel.UmlType> e : after.types.entrySet()) {
+            UmlModel.UmlType old = before.types.get(e.getKey());
+            if (old == null) {
+                d.addedTypes.add(e.getKey());
+                continue;
+            }
+            UmlModel.UmlType now = e.getValue();
+            TypeChange c = new TypeChange();
+            c.kindBefore = old.kind;
+            c.kindAfter = now.kind;
+            diffMembers(old.fields, now.fields, c.addedFields, c.removedFields);
+            diffMembers(old.methods, now.methods, c.addedMethods, c.removedMethods);
+            if (!c.isEmpty()) d.changedTypes.put(e.getKey(), c);
+        }
+
+        Set<Edge> beforeEdges = edges(before);
+        Set<Edge> afterEdges = edges(after);
+        for (Edge edge : afterEdges) {
+            if (!beforeEdges.contains(edge)) d.addedEdges.add(edge);
+        }
+        for (Edge edge : beforeEdges) {
+            if (!afterEdges.contains(edge)) d.removedEdges.add(edge);
+        }
+        // a type whose outgoing edges changed counts as changed even if its members did not
+        for (Edge edge : d.addedEdges) d.markEdgeChange(edge.from());
+        for (Edge edge : d.removedEdges) d.markEdgeChange(edge.from());
+        return d;
+    }
+
+    public boolean isEmpty() {
+        return addedTypes.isEmpty() && removedTypes.isEmpty() && changedTypes.isEmpty()
+                && addedEdges.isEmpty() && removedEdges.isEmpty();
+    }
+
+    /** e.g. {@code +3 types, -1 types, 5 changed, +10/-2 edges}. */
+    public String summary() {
+        return "+" + addedTypes.size() + " types, -" + removedTypes.size() + " types, " + changedTypes.size()
+                + " changed, +" + addedEdges.size() + "/-" + removedEdges.size() + " edges";
+    }
+
+    /** Every edge of {@code model}, deduplicated. */
+    static Set<Edge> edges(UmlModel model) {
+        Set<Edge> edges = new LinkedHashSet<>();
+        for (UmlModel.UmlType t : model.types.values()) {
+            for (String x : t.extendsTypes) edges.add(new Edge(t.name, x, EdgeKind.EXTENDS));
+            for (String x : t.implementsTypes) edges.add(new Edge(t.name, x, EdgeKind.IMPLEMENTS));
+        }
+        for (String[] a : model.associations) edges.add(new Edge(a[0], a[1], EdgeKind.ASSOCIATION));
+        return edges;
+    }
+
+    private void markEdgeChange(String from) {
+        if (!before.types.containsKey(from) || !after.types.containsKey(from)) return; // already added/removed
+        TypeChange c = changedTypes.get(from);
+        if (c == null) {
+            c = new TypeChange();
+            c.kindBefore = before.types.get(from).kind;
+            c.kindAfter = after.types.get(from).kind;
+            changedTypes.put(from, c);
+        }
+        c.edgesChanged = true;
+    }
+
+    private static void diffMembers(List<String> old, List<String> now, List<String> added, List<String> removed) {
+        if (old.equals(now)) return;
+        Set<String> oldSet = new HashSet<>(old);
+        Set<String> nowSet = new HashSet<>(now);
+        for (String m : now) if (!oldSet.contains(m)) added.add(m);
+        for (String m : old) if (!nowSet.contains(m)) removed.add(m);
+    }
+}
@@ -0,0 +1,88 @@
+package app.visualizer.gui;
+
+import app.visualizer.render.PumlIndex;
+import javafx.collections.FXCollections;
+import javafx.scene.control.ListView;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+
+import java.util.AbstractList;
+
+/**
+ * Read-only, virtualized PlantUML viewer: one list row per line, backed by the text and its {@link PumlIndex}, so only
+ * the visible rows are ever turned into strings or cells. A multi-megabyte diagram costs one String and one int[].
+ * Ctrl+C copies the selected lines.
+ */
+class PumlTextView extends ListView<String> {
+    private String text = "";
+    private PumlIndex index = PumlIndex.of("");
+
+    PumlTextView() {
+        setStyle("-fx-font-family: 'monospace'; -fx-font-size: 12px;");
+        setFixedCellSize(18); // uniform rows: the list never has to measure off-screen lines
+        getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        setOnKeyPressed(e -> {
+            if (e.isShortcutDown() && e.getCode() == KeyCode.C) {
+                copySelection();
+                e.consume();
+            }
+        });
+    }
+
+    /** @param index must have been built from exactly {@code text} */
+    void setText(String text, PumlIndex index) {
+        this.text = text;
+        this.index = index;
+        setItems(FXCollections.observableList(new Lines(text, index)));
+        getSelectionModel().clearSelection();
+        scrollTo(0);
+    }
+
+    String getText() {
+        return text;
+    }
+
+    PumlIndex getIndex() {
+        return index;
+    }
+
+    /** Selects and scrolls to {@code line}. */
+    void showLine(int line) {
+        getSelectionModel().clearAndSelect(line);
+        scrollTo(Math.max(0, line - 3)); // a little context above
+        requestFocus();
+    }
+
+    private void copySelection() {
+        StringBuilder sb = new StringBuilder();
+        for (Integer line : getSelectionModel().getSelectedIndices().sorted()) {
+            sb.append(text, index.lineStart(line), index.lineEnd(line)).append('\n');
+        }
+        ClipboardContent content = new ClipboardContent();
+        content.putString(sb.toString());
+        Clipboard.getSystemClipboard().setContent(content);
+    }
+
+    /** Lines materialized on demand from the shared text. */
+    private static final class Lines extends AbstractList<String> {
+        private final String text;
+        private final PumlIndex index;
+
+        Lines(String text, PumlIndex index) {
+            this.text = text;
+            this.index = index;
+        }
+
+        @Override
+        public String get(int line) {
+            return text.substring(index.lineStart(line), index.lineEnd(line));
+        }
+
+        @Override
+        public int size() {
+            return index.lineCount();
+        }
+    }
+}
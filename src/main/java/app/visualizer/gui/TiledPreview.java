@@ -0,0 +1,247 @@
+package app.visualizer.gui;
+
+import javafx.application.Platform;
+import javafx.geometry.Point2D;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Pane;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Diagram preview that keeps only the encoded PNG and decodes the tiles that intersect the {@link ScrollPane}
+ * viewport, in the background, at the coarsest power-of-two subsampling that still looks sharp at the current zoom.
+ * Decoded tiles live in a small LRU keyed by (level, column, row), so the <em>displayed</em> pixels follow the
+ * viewport rather than the diagram.
+ * <p>
+ * This does not bound the render itself: PlantUML still lays out and encodes the full-resolution PNG, allocating the
+ * whole raster while it does. And PNG cannot be decoded from the middle, so a tile read inflates every row above it;
+ * the missing tiles of one row are therefore read in a single pass, which makes horizontal neighbours free but still
+ * leaves tiles near the bottom of a huge diagram slower than those at the top.
+ */
+class TiledPreview extends Pane {
+    static final int TILE = 512;        // on-screen tile edge before zoom, in decoded pixels
+    private static final int MAX_TILES = 64;
+    private static final double MIN_ZOOM = 0.02, MAX_ZOOM = 8;
+
+    private final ScrollPane scrollPane;
+    private final ExecutorService decoder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "uml-tile-decoder");
+        t.setDaemon(true);
+        return t;
+    });
+    // FX-thread state
+    private final LinkedHashMap<Long, Image> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, ImageView> views = new HashMap<>();
+    private final Set<Long> pending = new HashSet<>();
+    private byte[] png;
+    private int width, height;
+    private double zoom = 1;
+    // read by the decoder to drop work that is no longer on screen
+    private volatile int generation;
+    private volatile Set<Long> wanted = Set.of();
+
+    TiledPreview(ScrollPane scrollPane) {
+        this.scrollPane = scrollPane;
+        setMinSize(USE_PREF_SIZE, USE_PREF_SIZE);
+        setMaxSize(USE_PREF_SIZE, USE_PREF_SIZE);
+        scrollPane.hvalueProperty().addListener((o, a, b) -> requestLayout());
+        scrollPane.vvalueProperty().addListener((o, a, b) -> requestLayout());
+        scrollPane.viewportBoundsProperty().addListener((o, a, b) -> requestLayout());
+    }
+
+    /** Shows a new PNG, zoomed to fit {@code fit} pixels; only the header is read here. */
+    void setImage(byte[] png, double fit) throws IOException {
+        int[] size = dimensions(png);
+        generation++;
+        tiles.clear();
+        pending.clear();
+        views.clear();
+        getChildren().clear();
+        this.png = png;
+        width = size[0];
+        height = size[1];
+        setZoom(Math.min(1, fit / Math.max(1, Math.max(width, height))));
+    }
+
+    boolean hasImage() {
+        return png != null;
+    }
+
+    void setZoom(double z) {
+        zoom = Math.max(MIN_ZOOM, Math.min(z, MAX_ZOOM));
+        setPrefSize(width * zoom, height * zoom);
+        requestLayout();
+    }
+
+    /** Zooms by {@code factor}, keeping the content under scene point (x, y) where it is. */
+    void zoomAt(double factor, double sceneX, double sceneY) {
+        double vpW = scrollPane.getViewportBounds().getWidth(), vpH = scrollPane.getViewportBounds().getHeight();
+        double scrollX = scrollX(vpW), scrollY = scrollY(vpH);
+        Point2D p = sceneToLocal(sceneX, sceneY);
+        double viewX = p.getX() - scrollX, viewY = p.getY() - scrollY;
+        double old = zoom;
+        setZoom(zoom * factor);
+        double scale = zoom / old;
+        scrollPane.layout();
+        double newW = width * zoom - vpW, newH = height * zoom - vpH;
+        scrollPane.setHvalue(newW <= 0 ? 0 : clamp((p.getX() * scale - viewX) / newW));
+        scrollPane.setVvalue(newH <= 0 ? 0 : clamp((p.getY() * scale - viewY) / newH));
+    }
+
+    @Override
+    protected void layoutChildren() {
+        if (png == null) return;
+        double vpW = scrollPane.getViewportBounds().getWidth(), vpH = scrollPane.getViewportBounds().getHeight();
+        double x0 = scrollX(vpW), y0 = scrollY(vpH);
+
+        int level = 0;
+        while (level < 6 && zoom * (2 << level) <= 1) level++; // subsample while it stays >= 1 source px per screen px
+        int srcTile = TILE << level;
+        double shown = srcTile * zoom;
+        int c0 = (int) (x0 / shown), c1 = (int) Math.min((x0 + vpW) / shown, (width - 1) / srcTile);
+        int r0 = (int) (y0 / shown), r1 = (int) Math.min((y0 + vpH) / shown, (height - 1) / srcTile);
+
+        Set<Long> visible = new HashSet<>();
+        List<long[]> missing = new ArrayList<>();
+        List<ImageView> children = new ArrayList<>();
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                long key = key(level, c, r);
+                visible.add(key);
+                Image img = tiles.get(key);
+                if (img == null) {
+                    missing.add(new long[]{key, c, r});
+                    continue;
+                }
+                ImageView v = views.computeIfAbsent(key, k -> new ImageView());
+                v.setImage(img);
+                v.setSmooth(true);
+                v.relocate(c * shown, r * shown);
+                v.setFitWidth(Math.min(srcTile, width - c * srcTile) * zoom);
+                v.setFitHeight(Math.min(srcTile, height - r * srcTile) * zoom);
+                children.add(v);
+            }
+        }
+        views.keySet().retainAll(visible);
+        wanted = visible;
+        // one decode per row: the columns between the leftmost and rightmost missing tile
+        Map<Integer, int[]> rows = new TreeMap<>();
+        for (long[] m : missing) {
+            if (pending.contains(m[0])) continue;
+            int[] span = rows.computeIfAbsent((int) m[2], r -> new int[]{Integer.MAX_VALUE, -1});
+            span[0] = Math.min(span[0], (int) m[1]);
+            span[1] = Math.max(span[1], (int) m[1]);
+        }
+        for (Map.Entry<Integer, int[]> e : rows.entrySet()) request(level, e.getKey(), e.getValue()[0], e.getValue()[1]);
+        getChildren().setAll(children);
+    }
+
+    private void request(int level, int row, int col0, int col1) {
+        List<Long> keys = new ArrayList<>();
+        for (int c = col0; c <= col1; c++) keys.add(key(level, c, row));
+        pending.addAll(keys);
+        byte[] bytes = png;
+        int gen = generation;
+        int srcTile = TILE << level;
+        Rectangle region = new Rectangle(col0 * srcTile, row * srcTile,
+                Math.min((col1 - col0 + 1) * srcTile, width - col0 * srcTile), Math.min(srcTile, height - row * srcTile));
+        decoder.execute(() -> {
+            List<Image> decoded = null;
+            // skip rows scrolled past or replaced while queued
+            if (gen == generation && keys.stream().anyMatch(wanted::contains)) {
+                try {
+                    decoded = decode(bytes, region, 1 << level, TILE);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Failed to decode preview tiles: " + e.getMessage());
+                }
+            }
+            List<Image> row0 = decoded;
+            Platform.runLater(() -> {
+                if (gen != generation) return;
+                pending.removeAll(keys);
+                if (row0 == null) return;
+                for (int i = 0; i < keys.size(); i++) tiles.put(keys.get(i), row0.get(i));
+                Iterator<Long> it = tiles.keySet().iterator();
+                while (tiles.size() > MAX_TILES && it.hasNext()) {
+                    it.next();
+                    it.remove();
+                }
+                requestLayout();
+            });
+        });
+    }
+
+    // decodes region (subsampled) in one pass and cuts it into tiles of tileWidth decoded pixels, left to right
+    private static List<Image> decode(byte[] png, Rectangle region, int subsampling, int tileWidth) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(png))) {
+            ImageReader reader = reader(in);
+            try {
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(region);
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage bi = reader.read(0, param);
+                int h = bi.getHeight();
+                List<Image> out = new ArrayList<>();
+                for (int x = 0; x < bi.getWidth(); x += tileWidth) {
+                    int w = Math.min(tileWidth, bi.getWidth() - x);
+                    WritableImage tile = new WritableImage(w, h);
+                    tile.getPixelWriter().setPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(),
+                            bi.getRGB(x, 0, w, h, null, 0, w), 0, w);
+                    out.add(tile);
+                }
+                return out;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static int[] dimensions(byte[] png) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(png))) {
+            ImageReader reader = reader(in);
+            try {
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static ImageReader reader(ImageInputStream in) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) throw new IOException("Unsupported preview image");
+        ImageReader reader = readers.next();
+        reader.setInput(in, true, true);
+        return reader;
+    }
+
+    private double scrollX(double vpW) {
+        return Math.max(0, width * zoom - vpW) * scrollPane.getHvalue();
+    }
+
+    private double scrollY(double vpH) {
+        return Math.max(0, height * zoom - vpH) * scrollPane.getVvalue();
+    }
+
+    private static long key(int level, int col, int row) {
+        return ((long) level << 56) | ((long) col << 28) | row;
+    }
+
+    private static double clamp(double v) {
+        return Math.max(0, Math.min(v, 1));
+    }
+}
@@ -1,36 +1,46 @@
 package app.visualizer.gui;
 
+import app.visualizer.metrics.Metrics;
+import app.visualizer.model.CompactModel.EdgeKind;
+import app.visualizer.model.ModelSnapshot;
 import app.visualizer.model.UmlModel;
+import app.visualizer.parse.IncrementalExtractor;
 import app.visualizer.parse.JavaExtractor;
+import app.visualizer.parse.ParseCache;
+import app.visualizer.query.NeighborhoodQuery;
+import app.visualizer.render.ImageRenderer;
 import app.visualizer.render.PlantUmlRenderer;
+import app.visualizer.render.PumlIndex;
+import app.visualizer.render.RenderCache;
+import app.visualizer.watch.SourceWatcher;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
-import javafx.geometry.Bounds;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
-import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
 import javafx.scene.input.ScrollEvent;
 import javafx.scene.input.TransferMode;
 import javafx.scene.layout.*;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
-import net.sourceforge.plantuml.SourceStringReader;
 
 import java.io.*;
 import java.nio.file.*;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 //To run it in the terminal
 //mvn clean javafx:run
@@ -41,21 +51,48 @@ public class UmlGuiApp extends Application {
 
     private TextField sourcePathField;
     private TextField outputPumlField;
-    private TextArea pumlArea;
+    private PumlTextView pumlView;
+    private TextArea pumlEditor; // swapped in for pumlView while the text is hand-edited
+    private ToggleButton editToggle;
+    private VBox leftPane;
     private ListView<String> legendList;
-    private ImageView preview;
+    private TiledPreview preview;
     private Label status;
     private CheckBox useElkLayout;
+    private Spinner<Integer> threadsSpinner;
+    private CheckBox useParseCache;
+    private ParseCache parseCache;
+    private final RenderCache renderCache = new RenderCache(RENDER_CACHE_MEMORY_BYTES, RENDER_CACHE_DIR,
+            RENDER_CACHE_DISK_BYTES, new ImageRenderer());
+    private CheckBox liveToggle;
+    private TextField focusField;
+    private Spinner<Integer> hopsSpinner;
+    private final Map<EdgeKind, CheckMenuItem> edgeKindItems = new EnumMap<>(EdgeKind.class);
+    private TextField includeField;
+    private TextField excludeField;
+    private SourceWatcher liveWatcher;
+    private volatile boolean liveRequested;
     private Button generateBtn;
     private Button exportPngBtn;
-    private Path tempWorkDir;
+    private Button cancelBtn;
+    private ProgressBar progressBar;
+    private Task<?> running;
+    // Shared by every generate run; stages only wait on image layout (see layoutPreview), so a cancelled run frees
+    // its thread at once, and the second thread covers a cancelled text stage still winding down
+    private final ExecutorService pipeline = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "uml-pipeline");
+        t.setDaemon(true);
+        return t;
+    });
+    // latest preview layout and its input, guarded by this
+    private String layoutText;
+    private CompletableFuture<byte[]> layout;
     private String lastSymbolClicked = null;
     private int lastMatchIndex = -1;
 
     //Fixing buttons into place: Mario Rodriguez
     @Override
     public void start(Stage stage) throws Exception {
-        tempWorkDir = Files.createTempDirectory("umlviz-");
         stage.setTitle("UML Visualizer");
 
         // === Top bar ===
@@ -63,7 +100,7 @@ public class UmlGuiApp extends Application {
         chooseBtn.setOnAction(e -> chooseFolder(stage));
 
         sourcePathField = new TextField();
-        sourcePathField.setPromptText("Path to Java source folder (or drop a folder/.zip here)");
+        sourcePathField.setPromptText("Path to Java source folder (or drop a folder, .zip/.jar or .umls snapshot here)");
         HBox.setHgrow(sourcePathField, Priority.ALWAYS);
 
         outputPumlField = new TextField("diagram.puml");
@@ -72,22 +109,70 @@ public class UmlGuiApp extends Application {
         useElkLayout = new CheckBox("Use ELK layout (no Graphviz)");
         useElkLayout.setSelected(true);
 
+        int cores = Runtime.getRuntime().availableProcessors();
+        threadsSpinner = new Spinner<>(1, Math.max(64, cores), cores);
+        threadsSpinner.setEditable(true);
+        threadsSpinner.setPrefWidth(75);
+        threadsSpinner.setTooltip(new Tooltip("Parser worker threads"));
+
+        useParseCache = new CheckBox("Cache parses");
+        useParseCache.setSelected(true);
+        useParseCache.setTooltip(new Tooltip("Reuse results for unchanged files (" + PARSE_CACHE_DIR + ")"));
+
+        focusField = new TextField();
+        focusField.setPromptText("Focus types (all)");
+        focusField.setPrefWidth(160);
+        focusField.setTooltip(new Tooltip("Comma-separated seed types; only their neighbourhood is drawn"));
+        hopsSpinner = new Spinner<>(0, 10, 1);
+        hopsSpinner.setEditable(true);
+        hopsSpinner.setPrefWidth(60);
+        hopsSpinner.setTooltip(new Tooltip("Hops around the focus types"));
+        MenuButton edgesMenu = new MenuButton("Edges");
+        edgesMenu.setTooltip(new Tooltip("Edge kinds the focus search follows (none ticked means all)"));
+        for (EdgeKind kind : EdgeKind.values()) {
+            CheckMenuItem item = new CheckMenuItem(kind.name().toLowerCase(Locale.ROOT));
+            item.setSelected(true);
+            edgeKindItems.put(kind, item);
+            edgesMenu.getItems().add(item);
+        }
+        includeField = new TextField();
+        includeField.setPromptText("Include packages");
+        includeField.setPrefWidth(130);
+        includeField.setTooltip(new Tooltip("Comma-separated package globs the focus search may enter, e.g. com.acme.**"));
+        excludeField = new TextField();
+        excludeField.setPromptText("Exclude packages");
+        excludeField.setPrefWidth(130);
+        excludeField.setTooltip(new Tooltip("Comma-separated package globs the focus search skips, e.g. java.**"));
+
+        liveToggle = new CheckBox("Live");
+        liveToggle.setTooltip(new Tooltip("Regenerate automatically when source files change"));
+        liveToggle.setOnAction(e -> {
+            liveRequested = liveToggle.isSelected();
+            if (liveRequested) startLive();
+            else stopLive();
+        });
+
         generateBtn = new Button("Generate UML");
         generateBtn.setDefaultButton(true);
         generateBtn.setOnAction(e -> generateUml());
 
-        exportPngBtn = new Button("Export PNG…");
+        cancelBtn = new Button("Cancel");
+        cancelBtn.setDisable(true);
+        cancelBtn.setOnAction(e -> {
+            if (running != null) running.cancel();
+        });
+
+        exportPngBtn = new Button("Export PNG/SVG…");
         exportPngBtn.setDisable(true);
         exportPngBtn.setOnAction(e -> exportPng(stage));
 
-        HBox top = new HBox(8, chooseBtn, sourcePathField, new Label("Out:"), outputPumlField, useElkLayout, generateBtn, exportPngBtn);
+        HBox top = new HBox(8, chooseBtn, sourcePathField, new Label("Out:"), outputPumlField, new Label("Threads:"), threadsSpinner, focusField, hopsSpinner, edgesMenu, includeField, excludeField, useParseCache, useElkLayout, liveToggle, generateBtn, cancelBtn, exportPngBtn);
         top.setPadding(new Insets(8));
 
         // === Center split: PlantUML text | Preview image ===
-        pumlArea = new TextArea();
-        pumlArea.setPromptText("Generated PlantUML will appear here…");
-        pumlArea.setWrapText(false);
-        pumlArea.setMinHeight(500);
+        pumlView = new PumlTextView();
+        pumlView.setPlaceholder(new Label("Generated PlantUML will appear here…"));
+        pumlView.setMinHeight(500);
 
         // === Legend ===
         legendList = new ListView<>();
@@ -105,66 +190,37 @@ public class UmlGuiApp extends Application {
             }
         });
 
-        preview = new ImageView();
-        preview.setPreserveRatio(true);
-        preview.setSmooth(true);
-
-        Group zoomGroup = new Group(preview);
-        ScrollPane scrollPane = new ScrollPane(zoomGroup);
+        ScrollPane scrollPane = new ScrollPane();
         scrollPane.setPannable(true);
         scrollPane.setFitToWidth(false);
         scrollPane.setFitToHeight(false);
+        preview = new TiledPreview(scrollPane);
+        scrollPane.setContent(preview);
 
-        preview.setOnScroll(event -> {
-            double delta = event.getDeltaY();
-            double scale = preview.getScaleX() + delta / 400;
-            scale = Math.max(0.1, Math.min(scale, 10)); // clamp scale
-
-            preview.setScaleX(scale);
-            preview.setScaleY(scale);
-
-            // Scroll bars will shrink automatically as content grows
-            event.consume();
-        });
-
-        // Allows you to scroll through the picture
+        // Scrolling over the diagram zooms around the mouse; the preview decodes tiles for the new level itself
         scrollPane.addEventFilter(ScrollEvent.SCROLL, event -> {
-            if (event.isControlDown()) {
-                double zoomFactor = (event.getDeltaY() > 0) ? 1.1 : 0.9;
-
-                Bounds viewportBounds = scrollPane.getViewportBounds();
-                Bounds contentBounds = zoomGroup.localToScene(zoomGroup.getBoundsInLocal());
-
-                double mouseX = event.getSceneX();
-                double mouseY = event.getSceneY();
-
-                double offsetX = mouseX - contentBounds.getMinX();
-                double offsetY = mouseY - contentBounds.getMinY();
-
-                zoomGroup.setScaleX(zoomGroup.getScaleX() * zoomFactor);
-                zoomGroup.setScaleY(zoomGroup.getScaleY() * zoomFactor);
-
-                scrollPane.layout();
-
-                double newWidth = zoomGroup.getBoundsInParent().getWidth();
-                double newHeight = zoomGroup.getBoundsInParent().getHeight();
-
-                double dx = offsetX * (zoomFactor - 1);
-                double dy = offsetY * (zoomFactor - 1);
-
-                double newH = (scrollPane.getHvalue() * (newWidth - viewportBounds.getWidth()) + dx)
-                        / (newWidth - viewportBounds.getWidth());
-                double newV = (scrollPane.getVvalue() * (newHeight - viewportBounds.getHeight()) + dy)
-                        / (newHeight - viewportBounds.getHeight());
-
-                scrollPane.setHvalue(Math.max(0, Math.min(newH, 1)));
-                scrollPane.setVvalue(Math.max(0, Math.min(newV, 1)));
-
+            if (preview.hasImage() && event.getDeltaY() != 0) {
+                preview.zoomAt(event.getDeltaY() > 0 ? 1.1 : 1 / 1.1, event.getSceneX(), event.getSceneY());
                 event.consume();
             }
         });
 
-        VBox left = new VBox(new Label("PlantUML"), pumlArea, new Label("Legend"), legendList);
+        // Hand edits: the plain TextArea only exists while editing; leaving edit mode re-indexes and re-renders
+        pumlEditor = new TextArea();
+        pumlEditor.setWrapText(false);
+        pumlEditor.setMinHeight(500);
+        pumlEditor.setStyle("-fx-font-family: 'monospace'; -fx-font-size: 12px;");
+        editToggle = new ToggleButton("Edit");
+        editToggle.selectedProperty().addListener((o, was, editing) -> {
+            if (editing) startEditing();
+            else finishEditing();
+        });
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        HBox pumlHeader = new HBox(8, new Label("PlantUML"), spacer, editToggle);
+
+        VBox left = new VBox(pumlHeader, pumlView, new Label("Legend"), legendList);
+        leftPane = left;
         left.setSpacing(4);
         VBox right = new VBox(new Label("Preview"), scrollPane);
         left.setSpacing(4);
@@ -176,7 +232,10 @@ public class UmlGuiApp extends Application {
 
         // === Bottom status bar ===
         status = new Label("Ready.");
-        HBox bottom = new HBox(status);
+        progressBar = new ProgressBar();
+        progressBar.setPrefWidth(200);
+        progressBar.setVisible(false);
+        HBox bottom = new HBox(8, progressBar, status);
         bottom.setPadding(new Insets(6));
 
         // === Root layout ===
@@ -185,7 +244,7 @@ public class UmlGuiApp extends Application {
         root.setCenter(split);
         root.setBottom(bottom);
 
-        // Drag & Drop (folder or .zip)
+        // Drag & Drop (folder, .zip/.jar read in place, or a .umls model snapshot)
         root.setOnDragOver(event -> {
             if (event.getDragboard().hasFiles()) {
                 event.acceptTransferModes(TransferMode.COPY);
@@ -196,19 +255,11 @@ public class UmlGuiApp extends Application {
             var db = event.getDragboard();
             if (db.hasFiles()) {
                 Path f = db.getFiles().get(0).toPath();
-                try {
-                    if (Files.isDirectory(f)) {
-                        sourcePathField.setText(f.toAbsolutePath().toString());
-                        setStatus("Selected: " + f.toAbsolutePath());
-                    } else if (f.toString().toLowerCase().endsWith(".zip")) {
-                        Path unzipped = unzipToTemp(f, tempWorkDir);
-                        sourcePathField.setText(unzipped.toAbsolutePath().toString());
-                        setStatus("Unzipped to: " + unzipped.toAbsolutePath());
-                    } else {
-                        setStatus("Unsupported drop: please drop a folder or .zip");
-                    }
-                } catch (IOException ex) {
-                    setStatus("Failed to process drop: " + ex.getMessage());
+                if (Files.isDirectory(f) || JavaExtractor.isArchive(f) || ModelSnapshot.isSnapshot(f)) {
+                    sourcePathField.setText(f.toAbsolutePath().toString());
+                    setStatus("Selected: " + f.toAbsolutePath());
+                } else {
+                    setStatus("Unsupported drop: please drop a folder, .zip, .jar or .umls");
                 }
             }
             event.setDropCompleted(true);
@@ -230,140 +281,438 @@ public class UmlGuiApp extends Application {
         }
     }
 
-    //Created by: Javier Castillo
-    private void generateUml() {
+    @Override
+    public void stop() {
+        stopLive();
+        pipeline.shutdownNow();
+    }
+
+    // Validates the source field; returns null (after reporting why) when it cannot be used
+    private Path sourceRoot() {
         Path src = Paths.get(sourcePathField.getText().trim());
         if (sourcePathField.getText().trim().isEmpty()) {
             setStatus("Please choose a source folder (or drop one).");
-            return;
+            return null;
+        }
+        if (!Files.exists(src) || !(Files.isDirectory(src) || JavaExtractor.isArchive(src) || ModelSnapshot.isSnapshot(src))) {
+            setStatus("Source path does not exist or is not a directory, .zip/.jar archive or .umls snapshot.");
+            return null;
+        }
+        return src;
+    }
+
+    // null when no focus types are entered: draw the whole model
+    private NeighborhoodQuery focusQuery() {
+        List<String> seeds = NeighborhoodQuery.list(focusField.getText());
+        if (seeds.isEmpty()) return null;
+        NeighborhoodQuery query = new NeighborhoodQuery(seeds, hopsSpinner.getValue());
+        Set<EdgeKind> kinds = EnumSet.noneOf(EdgeKind.class);
+        edgeKindItems.forEach((kind, item) -> {
+            if (item.isSelected()) kinds.add(kind);
+        });
+        query.setEdgeKinds(kinds);
+        query.setIncludes(NeighborhoodQuery.list(includeField.getText()));
+        query.setExcludes(NeighborhoodQuery.list(excludeField.getText()));
+        return query;
+    }
+
+    private String outputName() {
+        return outputPumlField.getText().trim().isEmpty() ? "diagram.puml" : outputPumlField.getText().trim();
+    }
+
+    private JavaExtractor newExtractor(int threads, boolean cacheParses) throws IOException {
+        JavaExtractor extractor = new JavaExtractor(threads);
+        if (cacheParses) {
+            ParseCache cache = parseCache();
+            cache.resetCounters();
+            extractor.setCache(cache);
         }
-        if (!Files.exists(src) || !Files.isDirectory(src)) {
-            setStatus("Source path does not exist or is not a directory.");
+        return extractor;
+    }
+
+    //Created by: Javier Castillo
+    // Two stages on the shared pipeline: extract + PlantUML text (shown as soon as it exists), then the image
+    private void generateUml() {
+        Path src = sourceRoot();
+        if (src == null) {
             return;
         }
-        String outName = outputPumlField.getText().trim().isEmpty() ? "diagram.puml" : outputPumlField.getText().trim();
+        boolean elk = useElkLayout.isSelected();
+        String outName = outputName();
+        int threads = threadsSpinner.getValue();
+        boolean cacheParses = useParseCache.isSelected();
+        NeighborhoodQuery focus = focusQuery();
+        Metrics metrics = new Metrics();
 
         generateBtn.setDisable(true);
         exportPngBtn.setDisable(true);
-        setStatus("Parsing…");
 
-        Task<Void> task = new Task<>() {
-            String pumlText;
-            Image image;
+        Task<String> textStage = new Task<>() {
+            String cacheSummary = "";
+            PumlIndex index;
 
             @Override
-            protected Void call() throws Exception {
-                // 1) Extract model
-                JavaExtractor extractor = new JavaExtractor();
-                UmlModel model = extractor.extract(src);
+            protected String call() throws Exception {
+                // 1) Extract model, reporting per-file progress
+                JavaExtractor extractor = newExtractor(threads, cacheParses);
+                extractor.setMetrics(metrics);
+                extractor.setProgressListener((phase, done, total) -> {
+                    if ("parse".equals(phase)) {
+                        updateProgress(done, total);
+                        updateMessage("Parsing " + done + "/" + total + " files...");
+                    } else {
+                        updateProgress(-1, 1);
+                        updateMessage("walk".equals(phase) ? "Scanning sources..." : "Inferring associations...");
+                    }
+                });
+                UmlModel model;
+                if (ModelSnapshot.isSnapshot(src)) {
+                    updateMessage("Loading snapshot...");
+                    long start = System.nanoTime();
+                    model = ModelSnapshot.read(src); // the source tree is not needed
+                    metrics.addPhase("snapshot-load", System.nanoTime() - start);
+                } else {
+                    model = extractor.extract(src);
+                }
+                if (cacheParses && extractor.getCache() != null) {
+                    cacheSummary = " [cache: " + extractor.getCache().getHits() + " hits, "
+                            + extractor.getCache().getMisses() + " misses]";
+                }
+                if (isCancelled()) return null;
+                if (focus != null) {
+                    long start = System.nanoTime();
+                    model = focus.run(model);
+                    metrics.addPhase("query", System.nanoTime() - start);
+                }
 
                 // 2) Render PlantUML text
-                PlantUmlRenderer renderer = new PlantUmlRenderer();
-                pumlText = renderer.toPlantUml(model);
-
-                // Optional ELK layout to avoid Graphviz dependency
-                if (useElkLayout.isSelected()) {
-                    pumlText = pumlText.replace("@startuml", "@startuml\n!pragma layout elk");
-                }
+                updateMessage("Writing PlantUML...");
+                long start = System.nanoTime();
+                String pumlText = withLayout(new PlantUmlRenderer().toPlantUml(model), elk);
+                index = PumlIndex.of(pumlText); // off the FX thread; the view and legend only do lookups
+                metrics.addPhase("text", System.nanoTime() - start);
 
                 // 3) Save .puml
                 Files.writeString(Paths.get(outName), pumlText,
                         StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-
-                // 4) Render PNG in-memory (no getMetadata() calls)
-                try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-                    SourceStringReader reader = new SourceStringReader(pumlText);
-                    reader.outputImage(os); // write PNG bytes into the stream
-                    byte[] bytes = os.toByteArray();
-                    if (bytes.length > 0) {
-                        try (ByteArrayInputStream is = new ByteArrayInputStream(bytes)) {
-                            image = new Image(is);
-                        }
-                    }
-                } catch (Throwable t) {
-                    System.err.println("Preview rendering failed: " + t.getMessage());
-                }
-                return null;
+                return pumlText;
             }
 
             //Created By: Joaquin Castillo & Jose Torres
             @Override
             protected void succeeded() {
-                pumlArea.setText(pumlText);
-                ObservableList<String> legendItems = FXCollections.observableArrayList();
-                for (Map.Entry<String, String> entry : UML_SYMBOLS.entrySet()) {
-                    if (pumlText.contains(entry.getKey())) {
-                        legendItems.add(String.format("%-6s : %s", entry.getKey(), entry.getValue()));
-                    }
-                }
-                legendList.setItems(legendItems);
-                if (image != null) {
-                    preview.setImage(image);
-                    preview.setFitWidth(800);
-                    preview.setFitHeight(800);
-                    preview.setPreserveRatio(true);
-                    preview.setSmooth(true);
-                    preview.setCache(true);
-                    exportPngBtn.setDisable(false);
-                    setStatus("Done. Saved " + Paths.get(outName).toAbsolutePath());
+                showText(getValue(), index);
+                renderImageStage(getValue(), outName, metrics, cacheSummary);
+            }
+
+            @Override
+            protected void cancelled() {
+                finishPipeline("Cancelled.");
+            }
+
+            @Override
+            protected void failed() {
+                finishPipeline("Failed: " + getException().getMessage());
+            }
+        };
+        runStage(textStage);
+    }
+
+    private void renderImageStage(String pumlText, String outName, Metrics metrics, String cacheSummary) {
+        Task<byte[]> imageStage = new Task<>() {
+            @Override
+            protected byte[] call() throws Exception {
+                updateProgress(-1, 1);
+                updateMessage("PlantUML saved to " + Paths.get(outName).toAbsolutePath() + "; rendering image...");
+                // 4) Render PNG in-memory
+                long start = System.nanoTime();
+                byte[] image = layoutPreview(pumlText);
+                metrics.addPhase("image", System.nanoTime() - start);
+                return image;
+            }
+
+            @Override
+            protected void succeeded() {
+                showImage(getValue());
+                String summary = " (" + metrics.summary() + ")" + cacheSummary
+                        + " [render cache: " + renderCache.getHits() + " hits, " + renderCache.getMisses() + " misses]";
+                if (getValue() != null) {
+                    finishPipeline("Done. Saved " + Paths.get(outName).toAbsolutePath() + summary);
                 } else {
-                    setStatus("Done. (Preview unavailable; PUML saved to " + Paths.get(outName).toAbsolutePath() + ")");
+                    finishPipeline("Done. (Preview unavailable; PUML saved to " + Paths.get(outName).toAbsolutePath() + ")" + summary);
                 }
-                generateBtn.setDisable(false);
+            }
+
+            // the abandoned layout finishes on its own thread and only lands in the render cache
+            @Override
+            protected void cancelled() {
+                finishPipeline("Image cancelled. PUML saved to " + Paths.get(outName).toAbsolutePath());
             }
 
             @Override
             protected void failed() {
-                setStatus("Failed: " + getException().getMessage());
-                generateBtn.setDisable(false);
+                finishPipeline("Failed: " + getException().getMessage());
             }
         };
+        runStage(imageStage);
+    }
+
+    private void runStage(Task<?> stage) {
+        running = stage;
+        stage.messageProperty().addListener((o, old, msg) -> {
+            if (running == stage) status.setText(msg); // workers may still report after a cancel
+        });
+        progressBar.progressProperty().bind(stage.progressProperty());
+        progressBar.setVisible(true);
+        cancelBtn.setDisable(false);
+        pipeline.execute(stage);
+    }
+
+    private void finishPipeline(String message) {
+        running = null;
+        progressBar.progressProperty().unbind();
+        progressBar.setVisible(false);
+        cancelBtn.setDisable(true);
+        generateBtn.setDisable(false);
+        status.setText(message);
+    }
+
+    // Optional ELK layout to avoid Graphviz dependency
+    private static String withLayout(String pumlText, boolean elk) {
+        return elk ? ImageRenderer.withElkLayout(pumlText) : pumlText;
+    }
+
+    /**
+     * {@link #renderPreview} on a thread of its own, since PlantUML layout cannot be interrupted: a cancel stops the
+     * wait, not the layout. Asking again for the text still being laid out joins that attempt instead of starting one.
+     */
+    private byte[] layoutPreview(String pumlText) throws InterruptedException, ExecutionException {
+        CompletableFuture<byte[]> result;
+        synchronized (this) {
+            if (layoutText == null || !layoutText.equals(pumlText) || layout.isDone()) {
+                CompletableFuture<byte[]> attempt = new CompletableFuture<>();
+                Thread t = new Thread(() -> {
+                    try {
+                        attempt.complete(renderPreview(pumlText));
+                    } catch (Throwable e) {
+                        attempt.completeExceptionally(e);
+                    }
+                }, "uml-preview-layout");
+                t.setDaemon(true);
+                t.start();
+                layoutText = pumlText;
+                layout = attempt;
+            }
+            result = layout;
+        }
+        return result.get();
+    }
+
+    // PNG bytes come from the render cache, so unchanged text is never laid out twice; null when PlantUML cannot produce an image
+    private byte[] renderPreview(String pumlText) {
+        try {
+            byte[] bytes = renderCache.render(pumlText, ImageRenderer.Format.PNG);
+            if (bytes.length > 0) {
+                return bytes;
+            }
+        } catch (Throwable t) {
+            System.err.println("Preview rendering failed: " + t.getMessage());
+        }
+        return null;
+    }
+
+    //Created By: Joaquin Castillo & Jose Torres
+    private void showDiagram(String pumlText, PumlIndex index, byte[] image) {
+        showText(pumlText, index);
+        showImage(image);
+    }
 
-        Thread t = new Thread(task, "uml-generate-thread");
+    private void showText(String pumlText, PumlIndex index) {
+        pumlView.setText(pumlText, index);
+        if (editToggle.isSelected()) {
+            pumlEditor.setText(pumlText); // regenerated text replaces hand edits
+            editToggle.setSelected(false);
+        }
+        lastSymbolClicked = null;
+        ObservableList<String> legendItems = FXCollections.observableArrayList();
+        for (Map.Entry<String, String> entry : UML_SYMBOLS.entrySet()) {
+            String symbol = entry.getKey();
+            boolean present = switch (symbol) {
+                case "C" -> index.declarations("class") > 0;
+                case "I" -> index.declarations("interface") > 0;
+                default -> index.linesWith(symbol).length > 0;
+            };
+            if (present) {
+                legendItems.add(String.format("%-6s : %s", entry.getKey(), entry.getValue()));
+            }
+        }
+        legendList.setItems(legendItems);
+    }
+
+    private void startEditing() {
+        pumlEditor.setText(pumlView.getText());
+        leftPane.getChildren().set(leftPane.getChildren().indexOf(pumlView), pumlEditor);
+        pumlEditor.requestFocus();
+        setStatus("Editing PlantUML; press Edit again to re-render the preview.");
+    }
+
+    // back to the indexed view; edited text is re-indexed and laid out off the FX thread, and is what Export renders
+    private void finishEditing() {
+        String edited = pumlEditor.getText();
+        leftPane.getChildren().set(leftPane.getChildren().indexOf(pumlEditor), pumlView);
+        pumlEditor.clear();
+        if (edited.equals(pumlView.getText())) return;
+        setStatus("Rendering edited PlantUML...");
+        Thread t = new Thread(() -> {
+            PumlIndex index = PumlIndex.of(edited);
+            byte[] image = null;
+            try {
+                image = layoutPreview(edited);
+            } catch (InterruptedException | ExecutionException ex) {
+                System.err.println("Preview rendering failed: " + ex.getMessage());
+            }
+            byte[] rendered = image;
+            Platform.runLater(() -> {
+                showDiagram(edited, index, rendered);
+                setStatus(rendered != null ? "Preview shows the edited PlantUML; Export uses it too."
+                        : "Edited PlantUML could not be rendered; Export uses the edited text.");
+            });
+        }, "uml-edit-render");
         t.setDaemon(true);
         t.start();
     }
 
+    private void showImage(byte[] image) {
+        if (image != null) {
+            try {
+                preview.setImage(image, 800);
+                exportPngBtn.setDisable(false);
+            } catch (IOException ex) {
+                setStatus("Preview unavailable: " + ex.getMessage());
+            }
+        }
+    }
+
+    private void startLive() {
+        Path src = sourceRoot();
+        if (src == null || !Files.isDirectory(src)) {
+            if (src != null) setStatus("Live mode watches folders; archives and snapshots are read once with Generate UML.");
+            liveToggle.setSelected(false);
+            liveRequested = false;
+            return;
+        }
+        boolean elk = useElkLayout.isSelected();
+        String outName = outputName();
+        int threads = threadsSpinner.getValue();
+        boolean cacheParses = useParseCache.isSelected();
+        NeighborhoodQuery focus = focusQuery();
+        setStatus("Live: building model…");
+
+        Thread starter = new Thread(() -> {
+            try {
+                JavaExtractor extractor = newExtractor(threads, cacheParses);
+                IncrementalExtractor incremental = new IncrementalExtractor(extractor, src);
+                incremental.build();
+                String[] last = {null};
+                refreshLive(incremental, focus, outName, elk, last, "initial build");
+                SourceWatcher watcher = new SourceWatcher(src, extractor.getWalker(), SourceWatcher.DEFAULT_DEBOUNCE_MILLIS, changed -> {
+                    if (incremental.update(changed)) {
+                        refreshLive(incremental, focus, outName, elk, last, changed.size() + " changed paths");
+                    }
+                });
+                if (!installLiveWatcher(watcher)) {
+                    watcher.close(); // toggled off while we were building
+                    return;
+                }
+                watcher.start();
+                setStatus("Live: watching " + src.toAbsolutePath());
+            } catch (Exception ex) {
+                setStatus("Live mode failed: " + ex.getMessage());
+                liveRequested = false;
+                Platform.runLater(() -> liveToggle.setSelected(false));
+            }
+        }, "uml-live-start");
+        starter.setDaemon(true);
+        starter.start();
+    }
+
+    // Re-renders only when the PlantUML text actually changed
+    private void refreshLive(IncrementalExtractor incremental, NeighborhoodQuery focus, String outName, boolean elk,
+                             String[] last, String reason) throws IOException {
+        UmlModel model = focus != null ? focus.run(incremental.getModel()) : incremental.getModel();
+        String text = withLayout(new PlantUmlRenderer().toPlantUml(model), elk);
+        if (text.equals(last[0])) {
+            return;
+        }
+        last[0] = text;
+        PumlIndex index = PumlIndex.of(text);
+        Files.writeString(Paths.get(outName), text, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        byte[] image = renderPreview(text);
+        Platform.runLater(() -> showDiagram(text, index, image));
+        setStatus("Live: updated " + Paths.get(outName).toAbsolutePath() + " (" + reason + ")");
+    }
+
+    private synchronized boolean installLiveWatcher(SourceWatcher watcher) {
+        if (!liveRequested) {
+            return false;
+        }
+        liveWatcher = watcher;
+        return true;
+    }
+
+    private synchronized void stopLive() {
+        if (liveWatcher != null) {
+            try {
+                liveWatcher.close();
+            } catch (IOException ignored) {
+            }
+            liveWatcher = null;
+            setStatus("Live mode off.");
+        }
+    }
+
+    private static final Path PARSE_CACHE_DIR = Paths.get(System.getProperty("user.home"), ".umlviz", "cache");
+
+    // Opened once and kept for the session; only touched from the generate task
+    private synchronized ParseCache parseCache() throws IOException {
+        if (parseCache == null) {
+            parseCache = ParseCache.open(PARSE_CACHE_DIR);
+        }
+        return parseCache;
+    }
+
+    private static final Path RENDER_CACHE_DIR = Paths.get(System.getProperty("user.home"), ".umlviz", "render-cache");
+    private static final long RENDER_CACHE_MEMORY_BYTES = 64L << 20;
+    private static final long RENDER_CACHE_DISK_BYTES = 512L << 20;
+
     //Created By: Jose Torres
     private void exportPng(Stage stage) {
-        if (preview.getImage() == null) {
+        if (!preview.hasImage()) {
             setStatus("No preview image to export.");
             return;
         }
         FileChooser fc = new FileChooser();
-        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("PNG Image", "*.png"));
+        fc.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("PNG Image", "*.png"),
+                new FileChooser.ExtensionFilter("SVG Image", "*.svg"));
         fc.setInitialFileName("diagram.png");
         File f = fc.showSaveDialog(stage);
         if (f != null) {
-            try (OutputStream os = new FileOutputStream(f)) {
-                // Re-render from current PlantUML text to the chosen file location
-                SourceStringReader reader = new SourceStringReader(pumlArea.getText());
-                reader.outputImage(os); // no getMetadata()
-                setStatus("Exported: " + f.getAbsolutePath());
-            } catch (IOException ex) {
-                setStatus("Export failed: " + ex.getMessage());
-            }
-        }
-    }
-
-    //Created By: Mario Rodriguez
-    private static Path unzipToTemp(Path zip, Path tempDir) throws IOException {
-        Path dest = tempDir.resolve(zip.getFileName().toString().replaceFirst("\\.zip$", ""));
-        Files.createDirectories(dest);
-        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zip))) {
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                Path out = dest.resolve(entry.getName()).normalize();
-                if (!out.startsWith(dest)) continue; // guard against zip-slip
-                if (entry.isDirectory()) {
-                    Files.createDirectories(out);
-                } else {
-                    Files.createDirectories(out.getParent());
-                    Files.copy(zis, out, StandardCopyOption.REPLACE_EXISTING);
+            ImageRenderer.Format format = f.getName().toLowerCase().endsWith(".svg")
+                    ? ImageRenderer.Format.SVG : ImageRenderer.Format.PNG;
+            String text = editToggle.isSelected() ? pumlEditor.getText() : pumlView.getText(); // hand edits included
+            // PNG of the previewed text is already cached; SVG is laid out once, off the FX thread
+            Thread t = new Thread(() -> {
+                try {
+                    Files.write(f.toPath(), renderCache.render(text, format));
+                    setStatus("Exported: " + f.getAbsolutePath());
+                } catch (IOException ex) {
+                    setStatus("Export failed: " + ex.getMessage());
                 }
-            }
+            }, "uml-export-thread");
+            t.setDaemon(true);
+            t.start();
         }
-        return dest;
     }
 
     //Created By: Javier Castillo
@@ -381,59 +730,31 @@ public class UmlGuiApp extends Application {
 
     //Created By: Javier Castillo
     private void highlightNextSymbolInPuml(String symbol) {
-        String text = pumlArea.getText();
-        int startIndex = 0;
+        int[] lines = pumlView.getIndex().linesWith(symbol);
+        if (lines.length == 0) {
+            setStatus("Symbol '" + symbol + "' not found.");
+            lastMatchIndex = -1;
+            return;
+        }
 
         if (symbol.equals(lastSymbolClicked)) {
-            startIndex = lastMatchIndex + 1;
+            lastMatchIndex++;
         } else {
             lastSymbolClicked = symbol;
-            lastMatchIndex = -1;
+            lastMatchIndex = 0;
         }
-
-        int nextIndex = text.indexOf(symbol, startIndex);
-        if (nextIndex >= 0) {
-            pumlArea.selectRange(nextIndex, nextIndex + symbol.length());
-            pumlArea.requestFocus();
-            lastMatchIndex = nextIndex;
-
-            String relationship = extractRelationship(text, symbol, nextIndex);
-            setStatus(relationship != null ? relationship : "Found '" + symbol + "' in diagram.");
+        boolean wrapped = lastMatchIndex >= lines.length;
+        if (wrapped) lastMatchIndex = 0;
+
+        int line = lines[lastMatchIndex];
+        pumlView.showLine(line);
+        PumlIndex.Relationship r = pumlView.getIndex().relationship(line);
+        if (r != null) {
+            setStatus((wrapped ? "Wrapped: " : "") + describeRelationship(r.left(), r.arrow(), r.right())
+                    + " (" + (lastMatchIndex + 1) + "/" + lines.length + ")");
         } else {
-            nextIndex = text.indexOf(symbol);
-            if (nextIndex >= 0) {
-                pumlArea.selectRange(nextIndex, nextIndex + symbol.length());
-                pumlArea.requestFocus();
-                lastMatchIndex = nextIndex;
-
-                String relationship = extractRelationship(text, symbol, nextIndex);
-                setStatus(relationship != null ? relationship : "Wrapped to first '" + symbol + "' in diagram.");
-            } else {
-                setStatus("Symbol '" + symbol + "' not found.");
-                lastMatchIndex = -1;
-            }
-        }
-    }
-
-    //Created By: Jose Torres
-    private String extractRelationship(String text, String symbol, int index) {
-        int lineStart = text.lastIndexOf("\n", index);
-        int lineEnd = text.indexOf("\n", index);
-        if (lineStart == -1) lineStart = 0;
-        if (lineEnd == -1) lineEnd = text.length();
-
-        String line = text.substring(lineStart, lineEnd).trim();
-
-        Pattern pattern = Pattern.compile("(\\w+)\\s*(<\\|--|<\\|\\.\\.|<--|-->|\\*--|o--|<\\.\\.|\\.\\.>|--\\*|--o)\\s*(\\w+)");
-        Matcher matcher = pattern.matcher(line);
-        if (matcher.find()) {
-            String left = matcher.group(1);
-            String arrow = matcher.group(2);
-            String right = matcher.group(3);
-            return describeRelationship(left, arrow, right);
+            setStatus((wrapped ? "Wrapped to first '" : "Found '") + symbol + "' in diagram.");
         }
-
-        return null;
     }
 
     //Created By: Joaquin Castillo
@@ -0,0 +1,190 @@
+package app.visualizer.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lightweight run profile: wall time per phase, per-file parse times (only the slowest N are kept), bytes read, types
+ * and edges produced, parse failures and the highest heap use seen while recording. Thread-safe, so parser workers can
+ * record into one instance.
+ * Everything is opt-in: components only record when a {@code Metrics} has been handed to them.
+ */
+public class Metrics {
+    public static final int DEFAULT_SLOWEST = 20;
+    private static final int MAX_FAILURES = 1000;
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final int slowestCount;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private final PriorityQueue<FileTiming> slowest = new PriorityQueue<>(Comparator.comparingLong(f -> f.nanos));
+    private final List<String[]> failures = new ArrayList<>();
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong heapUsedPeak = new AtomicLong();
+    private int failureCount;
+
+    public Metrics() {
+        this(DEFAULT_SLOWEST);
+    }
+
+    public Metrics(int slowestCount) {
+        this.slowestCount = slowestCount;
+        sampleHeap();
+    }
+
+    /** Adds {@code nanos} to a phase; callers time with {@code System.nanoTime()}, and repeated phases add up. */
+    public synchronized void addPhase(String name, long nanos) {
+        phaseNanos.merge(name, nanos, Long::sum);
+        sampleHeap();
+    }
+
+    public void recordFile(Object file, long nanos, long bytes) {
+        files.incrementAndGet();
+        bytesRead.addAndGet(bytes);
+        sampleHeap();
+        synchronized (slowest) {
+            if (slowest.size() < slowestCount) {
+                slowest.add(new FileTiming(file.toString(), nanos, bytes));
+            } else if (!slowest.isEmpty() && slowest.peek().nanos < nanos) {
+                slowest.poll();
+                slowest.add(new FileTiming(file.toString(), nanos, bytes));
+            }
+        }
+    }
+
+    public synchronized void recordFailure(Object file, String message) {
+        failureCount++;
+        if (failures.size() < MAX_FAILURES) failures.add(new String[]{file.toString(), String.valueOf(message)});
+    }
+
+    /** Sets a named count such as {@code types} or {@code edges}. */
+    public synchronized void count(String name, long value) {
+        counters.put(name, value);
+    }
+
+    /** @return the named count, or 0 if it was never set */
+    public synchronized long getCount(String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+
+    public long getFiles() {
+        return files.get();
+    }
+
+    public synchronized int getFailureCount() {
+        return failureCount;
+    }
+
+    public synchronized Map<String, Long> getPhaseNanos() {
+        return new LinkedHashMap<>(phaseNanos);
+    }
+
+    /**
+     * Highest heap use this instance sampled: at creation, every recorded file and phase, and when written. A lower
+     * bound on the real peak (garbage between samples is missed), but it reads the JVM's pools without resetting
+     * them, so instances that overlap (batch roots, live runs) do not disturb each other's figures.
+     */
+    public long heapUsedPeakBytes() {
+        sampleHeap();
+        return heapUsedPeak.get();
+    }
+
+    private void sampleHeap() {
+        heapUsedPeak.accumulateAndGet(MEMORY.getHeapMemoryUsage().getUsed(), Math::max);
+    }
+
+    /** One-line phase breakdown for status bars, e.g. {@code walk 4 ms | parse 1.3 s | associations 12 ms}. */
+    public synchronized String summary() {
+        StringJoiner s = new StringJoiner(" | ");
+        phaseNanos.forEach((name, nanos) -> s.add(name + " " + formatNanos(nanos)));
+        if (failureCount > 0) s.add(failureCount + " failed");
+        return s.toString();
+    }
+
+    public void writeJson(Path out) throws IOException {
+        try (Writer w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            writeJson(w);
+        }
+    }
+
+    public synchronized void writeJson(Writer w) throws IOException {
+        w.write("{\n");
+        w.write("  \"totalMillis\": " + millis(System.nanoTime() - startNanos) + ",\n");
+        w.write("  \"phasesMillis\": {");
+        String sep = "";
+        for (Map.Entry<String, Long> e : phaseNanos.entrySet()) {
+            w.write(sep + "\n    " + quote(e.getKey()) + ": " + millis(e.getValue()));
+            sep = ",";
+        }
+        w.write(phaseNanos.isEmpty() ? "},\n" : "\n  },\n");
+        w.write("  \"files\": " + files.get() + ",\n");
+        w.write("  \"bytesRead\": " + bytesRead.get() + ",\n");
+        for (Map.Entry<String, Long> e : counters.entrySet()) {
+            w.write("  " + quote(e.getKey()) + ": " + e.getValue() + ",\n");
+        }
+        w.write("  \"heapUsedPeakSampledBytes\": " + heapUsedPeakBytes() + ",\n");
+
+        List<FileTiming> top;
+        synchronized (slowest) {
+            top = new ArrayList<>(slowest);
+        }
+        top.sort(Comparator.comparingLong((FileTiming f) -> f.nanos).reversed());
+        w.write("  \"slowestFiles\": [");
+        sep = "";
+        for (FileTiming f : top) {
+            w.write(sep + "\n    {\"path\": " + quote(f.path) + ", \"millis\": " + millis(f.nanos) + ", \"bytes\": " + f.bytes + "}");
+            sep = ",";
+        }
+        w.write(top.isEmpty() ? "],\n" : "\n  ],\n");
+        w.write("  \"parseFailures\": " + failureCount + ",\n");
+        w.write("  \"failures\": [");
+        sep = "";
+        for (String[] f : failures) {
+            w.write(sep + "\n    {\"path\": " + quote(f[0]) + ", \"message\": " + quote(f[1]) + "}");
+            sep = ",";
+        }
+        w.write(failures.isEmpty() ? "]\n" : "\n  ]\n");
+        w.write("}\n");
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String formatNanos(long nanos) {
+        return nanos >= 1_000_000_000L
+                ? String.format(Locale.ROOT, "%.1f s", nanos / 1e9)
+                : (nanos / 1_000_000) + " ms";
+    }
+
+    private static String quote(String s) {
+        StringBuilder b = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> b.append("\\\"");
+                case '\\' -> b.append("\\\\");
+                case '\n' -> b.append("\\n");
+                case '\r' -> b.append("\\r");
+                case '\t' -> b.append("\\t");
+                default -> {
+                    if (c < 0x20) b.append(String.format("\\u%04x", (int) c));
+                    else b.append(c);
+                }
+            }
+        }
+        return b.append('"').toString();
+    }
+
+    private record FileTiming(String path, long nanos, long bytes) {
+    }
+}
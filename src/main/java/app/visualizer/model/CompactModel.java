@@ -0,0 +1,448 @@
+package app.visualizer.model;
+
+import java.util.*;
+
+/**
+ * Memory-compact, read-only form of a {@link UmlModel} for very large graphs. Types live in int-indexed tables keyed
+ * by fully-qualified name (so same-named types in different packages coexist), every string is interned once in a
+ * shared table, and extends/implements/association edges are stored as CSR adjacency arrays
+ * ({@code offsets[t]..offsets[t+1]} indexes into {@code targets}).
+ * <p>
+ * Supertypes that are not part of the model (e.g. {@code java.io.Serializable}) become <em>external</em> types: they
+ * have an id so edges stay int-to-int, but they are not rendered as declarations.
+ */
+public final class CompactModel {
+    public enum EdgeKind { EXTENDS, IMPLEMENTS, ASSOCIATION }
+
+    private static final byte EXTERNAL = -1;
+    private static final UmlModel.UmlType.Kind[] KINDS = UmlModel.UmlType.Kind.values();
+
+    private final String[] strings;
+    private final int typeCount;
+    private final int[] nameIds;
+    private final int[] packageIds;
+    private final int[] scopeIds;
+    private final byte[] kinds;
+    private final int[] fieldOffsets;
+    private final int[] fieldIds;
+    private final int[] methodOffsets;
+    private final int[] methodIds;
+    private final int[][] edgeOffsets;
+    private final int[][] edgeTargets;
+    private final BitSet ambiguous;
+    private Map<String, Integer> byQualifiedName;
+    private final int[][][] reverse = new int[EdgeKind.values().length][][];
+
+    CompactModel(String[] strings, int typeCount, int[] nameIds, int[] packageIds, int[] scopeIds, byte[] kinds,
+                 int[] fieldOffsets, int[] fieldIds, int[] methodOffsets, int[] methodIds,
+                 int[][] edgeOffsets, int[][] edgeTargets) {
+        this.strings = strings;
+        this.typeCount = typeCount;
+        this.nameIds = nameIds;
+        this.packageIds = packageIds;
+        this.scopeIds = scopeIds;
+        this.kinds = kinds;
+        this.fieldOffsets = fieldOffsets;
+        this.fieldIds = fieldIds;
+        this.methodOffsets = methodOffsets;
+        this.methodIds = methodIds;
+        this.edgeOffsets = edgeOffsets;
+        this.edgeTargets = edgeTargets;
+        this.ambiguous = findAmbiguousNames();
+    }
+
+    /** Number of types, external ones included; valid ids are {@code 0..typeCount()-1}. */
+    public int typeCount() {
+        return typeCount;
+    }
+
+    public String name(int type) {
+        return strings[nameIds[type]];
+    }
+
+    public String packageName(int type) {
+        return strings[packageIds[type]];
+    }
+
+    /** Package plus enclosing types, e.g. {@code java.util.Map} for {@code Entry}. */
+    public String scope(int type) {
+        return strings[scopeIds[type]];
+    }
+
+    public String qualifiedName(int type) {
+        String scope = scope(type);
+        return scope.isEmpty() ? name(type) : scope + "." + name(type);
+    }
+
+    /** Simple name, or the qualified name when another declared type shares the simple name. */
+    public String displayName(int type) {
+        return ambiguous.get(type) ? qualifiedName(type) : name(type);
+    }
+
+    public boolean isExternal(int type) {
+        return kinds[type] == EXTERNAL;
+    }
+
+    /** @return the declaration kind, or {@code null} for external types */
+    public UmlModel.UmlType.Kind kind(int type) {
+        return isExternal(type) ? null : KINDS[kinds[type]];
+    }
+
+    public int fieldCount(int type) {
+        return fieldOffsets[type + 1] - fieldOffsets[type];
+    }
+
+    public String field(int type, int i) {
+        return strings[fieldIds[fieldOffsets[type] + i]];
+    }
+
+    public int methodCount(int type) {
+        return methodOffsets[type + 1] - methodOffsets[type];
+    }
+
+    public String method(int type, int i) {
+        return strings[methodIds[methodOffsets[type] + i]];
+    }
+
+    public int edgeCount(EdgeKind kind, int type) {
+        int[] offsets = edgeOffsets[kind.ordinal()];
+        return offsets[type + 1] - offsets[type];
+    }
+
+    public int edgeTarget(EdgeKind kind, int type, int i) {
+        return edgeTargets[kind.ordinal()][edgeOffsets[kind.ordinal()][type] + i];
+    }
+
+    /** Total number of edges of {@code kind}. */
+    public int edgeCount(EdgeKind kind) {
+        return edgeTargets[kind.ordinal()].length;
+    }
+
+    /**
+     * Incoming adjacency for {@code kind} as a CSR pair {@code {offsets, sources}}; built in O(V+E) on first use and
+     * shared afterwards (callers must not modify it), so the model only pays for directions that are queried.
+     */
+    public synchronized int[][] reverseEdges(EdgeKind kind) {
+        if (reverse[kind.ordinal()] == null) reverse[kind.ordinal()] = buildReverseEdges(kind);
+        return reverse[kind.ordinal()];
+    }
+
+    private int[][] buildReverseEdges(EdgeKind kind) {
+        int[] offsets = edgeOffsets[kind.ordinal()];
+        int[] targets = edgeTargets[kind.ordinal()];
+        int[] revOffsets = new int[typeCount + 1];
+        for (int target : targets) revOffsets[target + 1]++;
+        for (int t = 0; t < typeCount; t++) revOffsets[t + 1] += revOffsets[t];
+        int[] fill = Arrays.copyOf(revOffsets, typeCount);
+        int[] sources = new int[targets.length];
+        for (int from = 0; from < typeCount; from++) {
+            for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+                sources[fill[targets[e]]++] = from;
+            }
+        }
+        return new int[][]{revOffsets, sources};
+    }
+
+    /** @return the id of the type with this qualified name, or -1 */
+    public synchronized int findType(String qualifiedName) {
+        if (byQualifiedName == null) {
+            byQualifiedName = new HashMap<>(typeCount * 2);
+            for (int t = 0; t < typeCount; t++) byQualifiedName.putIfAbsent(qualifiedName(t), t);
+        }
+        return byQualifiedName.getOrDefault(qualifiedName, -1);
+    }
+
+    /** Expands back into the mutable model, naming types by {@link #displayName}. */
+    public UmlModel toUmlModel() {
+        UmlModel model = new UmlModel();
+        for (int t = 0; t < typeCount; t++) {
+            if (isExternal(t)) continue;
+            UmlModel.UmlType u = new UmlModel.UmlType();
+            u.name = displayName(t);
+            u.packageName = packageName(t);
+            u.qualifiedName = qualifiedName(t);
+            u.kind = kind(t);
+            for (int i = 0; i < fieldCount(t); i++) u.fields.add(field(t, i));
+            for (int i = 0; i < methodCount(t); i++) u.methods.add(method(t, i));
+            for (int i = 0; i < edgeCount(EdgeKind.EXTENDS, t); i++) u.extendsTypes.add(displayName(edgeTarget(EdgeKind.EXTENDS, t, i)));
+            for (int i = 0; i < edgeCount(EdgeKind.IMPLEMENTS, t); i++) u.implementsTypes.add(displayName(edgeTarget(EdgeKind.IMPLEMENTS, t, i)));
+            model.types.put(u.name, u);
+        }
+        for (int t = 0; t < typeCount; t++) {
+            for (int i = 0; i < edgeCount(EdgeKind.ASSOCIATION, t); i++) {
+                model.associations.add(new String[]{displayName(t), displayName(edgeTarget(EdgeKind.ASSOCIATION, t, i)), ""});
+            }
+        }
+        return model;
+    }
+
+    /** Builds a compact copy of an existing model; types are keyed by their map key, as the model itself does. */
+    public static CompactModel of(UmlModel model) {
+        Builder b = new Builder();
+        Map<String, Integer> ids = new HashMap<>();
+        for (UmlModel.UmlType t : model.types.values()) {
+            ids.put(t.name, b.addType(t));
+        }
+        for (String[] a : model.associations) {
+            Integer from = ids.get(a[0]);
+            if (from != null) b.addAssociation(from, a[1]);
+        }
+        return b.build();
+    }
+
+    private BitSet findAmbiguousNames() {
+        Map<Integer, Integer> firstByName = new HashMap<>();
+        BitSet result = new BitSet(typeCount);
+        for (int t = 0; t < typeCount; t++) {
+            if (isExternal(t)) continue;
+            Integer other = firstByName.putIfAbsent(nameIds[t], t);
+            if (other != null) {
+                result.set(other);
+                result.set(t);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Collects declared types and unresolved references, then resolves everything into the int tables in
+     * {@link #build()}. References resolve to the type with that qualified name, else to a same-named type visible
+     * from the referring type's scope or package, else to the first type with that simple name.
+     * <p>
+     * {@link #addType} interns a type into flat int tables straight away and keeps no reference to it, so a caller
+     * that feeds types as they are parsed never holds more than the tables plus the types in flight.
+     */
+    public static final class Builder {
+        private final StringTable strings = new StringTable();
+        private final IntBuffer nameIds = new IntBuffer();
+        private final IntBuffer packageIds = new IntBuffer();
+        private final IntBuffer scopeIds = new IntBuffer();
+        private final IntBuffer kinds = new IntBuffer();
+        private final IntBuffer fieldOffsets = new IntBuffer(0);
+        private final IntBuffer fieldIds = new IntBuffer();
+        private final IntBuffer methodOffsets = new IntBuffer(0);
+        private final IntBuffer methodIds = new IntBuffer();
+        // unresolved extends / implements names, CSR by declaring type
+        private final IntBuffer[] superOffsets = {new IntBuffer(0), new IntBuffer(0)};
+        private final IntBuffer[] superNames = {new IntBuffer(), new IntBuffer()};
+        private final IntBuffer associationSources = new IntBuffer();
+        private final IntBuffer associationNames = new IntBuffer();
+        private int declared;
+
+        public Builder() {
+            intern("");
+        }
+
+        public int addType(UmlModel.UmlType t) {
+            String pkg = t.packageName == null ? "" : t.packageName;
+            String qualified = t.qualifiedName != null ? t.qualifiedName : pkg.isEmpty() ? t.name : pkg + "." + t.name;
+            nameIds.add(intern(t.name));
+            packageIds.add(intern(pkg));
+            scopeIds.add(intern(qualified.length() > t.name.length()
+                    ? qualified.substring(0, qualified.length() - t.name.length() - 1) : ""));
+            kinds.add(t.kind.ordinal());
+            for (String f : t.fields) fieldIds.add(intern(f));
+            fieldOffsets.add(fieldIds.size);
+            for (String m : t.methods) methodIds.add(intern(m));
+            methodOffsets.add(methodIds.size);
+            for (String ref : t.extendsTypes) superNames[0].add(intern(ref));
+            superOffsets[0].add(superNames[0].size);
+            for (String ref : t.implementsTypes) superNames[1].add(intern(ref));
+            superOffsets[1].add(superNames[1].size);
+            return declared++;
+        }
+
+        /** Records that {@code from} references a type named {@code name}; unknown names produce no edge. */
+        public void addAssociation(int from, String name) {
+            associationSources.add(from);
+            associationNames.add(intern(name));
+        }
+
+        public CompactModel build() {
+            Map<String, Integer> byQualified = new HashMap<>();
+            Map<String, List<Integer>> bySimple = new HashMap<>();
+            for (int t = 0; t < declared; t++) {
+                String name = strings.get(nameIds.get(t));
+                String scope = strings.get(scopeIds.get(t));
+                byQualified.putIfAbsent(scope.isEmpty() ? name : scope + "." + name, t);
+                bySimple.computeIfAbsent(name, k -> new ArrayList<>(1)).add(t);
+            }
+
+            // Supertypes may point outside the model; those get external ids appended after the declared types
+            Map<String, Integer> externals = new LinkedHashMap<>();
+            IntBuffer[] targets = {new IntBuffer(), new IntBuffer(), new IntBuffer()};
+            int[][] offsets = new int[3][declared + 1];
+            for (int t = 0; t < declared; t++) {
+                String pkg = strings.get(packageIds.get(t));
+                String scope = strings.get(scopeIds.get(t));
+                for (int k = 0; k < 2; k++) {
+                    for (int i = superOffsets[k].get(t); i < superOffsets[k].get(t + 1); i++) {
+                        targets[k].add(resolveOrExternal(strings.get(superNames[k].get(i)), scope, pkg, byQualified, bySimple, externals));
+                    }
+                    offsets[k][t + 1] = targets[k].size;
+                }
+            }
+
+            // associations: grouped by source with a counting sort (stable, so per-source order survives), deduplicated
+            int refs = associationSources.size;
+            int[] bySource = new int[declared + 1];
+            for (int r = 0; r < refs; r++) bySource[associationSources.get(r) + 1]++;
+            for (int t = 0; t < declared; t++) bySource[t + 1] += bySource[t];
+            int[] fill = Arrays.copyOf(bySource, declared);
+            int[] order = new int[refs];
+            for (int r = 0; r < refs; r++) order[fill[associationSources.get(r)]++] = r;
+            Set<Integer> seen = new HashSet<>();
+            for (int t = 0; t < declared; t++) {
+                seen.clear();
+                String pkg = strings.get(packageIds.get(t));
+                String scope = strings.get(scopeIds.get(t));
+                for (int r = bySource[t]; r < bySource[t + 1]; r++) {
+                    int target = resolve(strings.get(associationNames.get(order[r])), scope, pkg, byQualified, bySimple);
+                    if (target >= 0 && target != t && seen.add(target)) targets[2].add(target);
+                }
+                offsets[2][t + 1] = targets[2].size;
+            }
+
+            int total = declared + externals.size();
+            int[] names = Arrays.copyOf(nameIds.data, total);
+            int[] packages = Arrays.copyOf(packageIds.data, total);
+            int[] scopes = Arrays.copyOf(scopeIds.data, total);
+            byte[] kindArray = new byte[total];
+            for (int t = 0; t < declared; t++) kindArray[t] = (byte) kinds.get(t);
+            for (String external : externals.keySet()) {
+                int t = externals.get(external);
+                names[t] = intern(external);
+                packages[t] = 0;
+                scopes[t] = 0;
+                kindArray[t] = EXTERNAL;
+            }
+            int[][] edgeOffsets = new int[3][];
+            for (int k = 0; k < 3; k++) {
+                // external types have no outgoing edges
+                edgeOffsets[k] = Arrays.copyOf(offsets[k], total + 1);
+                Arrays.fill(edgeOffsets[k], declared + 1, total + 1, offsets[k][declared]);
+            }
+            int[] fo = Arrays.copyOf(fieldOffsets.data, total + 1);
+            Arrays.fill(fo, declared + 1, total + 1, fieldOffsets.get(declared));
+            int[] mo = Arrays.copyOf(methodOffsets.data, total + 1);
+            Arrays.fill(mo, declared + 1, total + 1, methodOffsets.get(declared));
+
+            return new CompactModel(strings.toArray(), total, names, packages, scopes, kindArray,
+                    fo, fieldIds.toArray(), mo, methodIds.toArray(), edgeOffsets, new int[][]{targets[0].toArray(), targets[1].toArray(), targets[2].toArray()});
+        }
+
+        private int resolveOrExternal(String ref, String scope, String pkg, Map<String, Integer> byQualified,
+                                      Map<String, List<Integer>> bySimple, Map<String, Integer> externals) {
+            int t = resolve(ref, scope, pkg, byQualified, bySimple);
+            if (t >= 0) return t;
+            return externals.computeIfAbsent(ref, k -> declared + externals.size());
+        }
+
+        private static int resolve(String ref, String scope, String pkg, Map<String, Integer> byQualified,
+                                   Map<String, List<Integer>> bySimple) {
+            Integer exact = byQualified.get(ref);
+            int dot = ref.lastIndexOf('.');
+            if (dot >= 0) {
+                if (exact != null) return exact;
+                // a package-qualified name we do not declare (java.util.List) must not bind to some other List;
+                // Outer.Inner style references fall through to the simple name
+                if (Character.isLowerCase(ref.charAt(0))) return -1;
+            }
+            List<Integer> candidates = bySimple.get(ref.substring(dot + 1));
+            if (candidates == null) return -1;
+            if (candidates.size() == 1) return candidates.get(0);
+            // walk outwards from the referring type's scope: members and siblings first, then the package
+            for (String s = scope; ; s = s.substring(0, Math.max(0, s.lastIndexOf('.')))) {
+                Integer local = byQualified.get(s.isEmpty() ? ref : s + "." + ref);
+                if (local != null) return local;
+                if (s.isEmpty() || s.length() <= pkg.length()) break;
+            }
+            Integer inPackage = byQualified.get(pkg.isEmpty() ? ref : pkg + "." + ref);
+            return inPackage != null ? inPackage : candidates.get(0);
+        }
+
+        private int intern(String s) {
+            return strings.intern(s);
+        }
+    }
+
+    /**
+     * Interning table: ids index a growable array, and lookups go through an open-addressing table of ids, so each
+     * distinct string costs two array slots instead of a hash map node plus a boxed id.
+     */
+    private static final class StringTable {
+        private String[] values = new String[64];
+        private int[] slots = filled(128);
+        private int size;
+
+        int intern(String s) {
+            int mask = slots.length - 1;
+            for (int i = spread(s) & mask; ; i = (i + 1) & mask) {
+                int id = slots[i];
+                if (id < 0) {
+                    if (size == values.length) values = Arrays.copyOf(values, size * 2);
+                    values[size] = s;
+                    slots[i] = size;
+                    if (++size * 2 > slots.length) rehash();
+                    return size - 1;
+                }
+                if (values[id].equals(s)) return id;
+            }
+        }
+
+        String get(int id) {
+            return values[id];
+        }
+
+        String[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        private void rehash() {
+            slots = filled(slots.length * 2);
+            int mask = slots.length - 1;
+            for (int id = 0; id < size; id++) {
+                int i = spread(values[id]) & mask;
+                while (slots[i] >= 0) i = (i + 1) & mask;
+                slots[i] = id;
+            }
+        }
+
+        private static int spread(String s) {
+            int h = s.hashCode();
+            return h ^ (h >>> 16);
+        }
+
+        private static int[] filled(int length) {
+            int[] a = new int[length];
+            Arrays.fill(a, -1);
+            return a;
+        }
+    }
+
+    /** Growable int array, to avoid boxing while collecting tables and edges. */
+    private static final class IntBuffer {
+        int[] data = new int[16];
+        int size;
+
+        IntBuffer() {
+        }
+
+        IntBuffer(int first) {
+            add(first);
+        }
+
+        int get(int i) {
+            return data[i];
+        }
+
+        void add(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
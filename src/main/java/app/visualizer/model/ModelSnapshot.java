@@ -0,0 +1,183 @@
+package app.visualizer.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Versioned binary snapshot of a {@link UmlModel}, so a model extracted once can be rendered many times without the
+ * source tree. Layout (big-endian):
+ * <pre>
+ *   int magic 'UMLS', int version
+ *   int stringCount, then per string: int byteLength, UTF-8 bytes      (every string is stored once)
+ *   int typeCount,   then per type:   int recordLength, record
+ *       record = key, name, package, qualifiedName (string ids, -1 = null), byte kind (-1 = null),
+ *                then fields, methods, extends, implements as int count + string ids
+ *   int associationCount, then per edge: from, to, label (string ids)
+ * </pre>
+ * Type records are length-prefixed so a reader can skip fields appended by a later version. Loading reads the file
+ * into the heap rather than mapping it: a mapping stays open until it is collected, and on Windows that blocks
+ * {@link #write} from replacing the snapshot that was just read.
+ */
+public final class ModelSnapshot {
+    public static final String EXTENSION = ".umls";
+    private static final int MAGIC = 0x554D4C53; // "UMLS"
+    private static final int VERSION = 1;
+    private static final UmlModel.UmlType.Kind[] KINDS = UmlModel.UmlType.Kind.values();
+
+    private ModelSnapshot() {
+    }
+
+    public static boolean isSnapshot(Path path) {
+        return path.getFileName() != null && path.getFileName().toString().toLowerCase().endsWith(EXTENSION)
+                && Files.isRegularFile(path);
+    }
+
+    /** Writes atomically: readers never see a half-written snapshot. */
+    public static void write(UmlModel model, Path file) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (Map.Entry<String, UmlModel.UmlType> e : model.types.entrySet()) {
+            UmlModel.UmlType t = e.getValue();
+            intern(e.getKey(), ids, strings);
+            intern(t.name, ids, strings);
+            intern(t.packageName, ids, strings);
+            intern(t.qualifiedName, ids, strings);
+            internAll(t.fields, ids, strings);
+            internAll(t.methods, ids, strings);
+            internAll(t.extendsTypes, ids, strings);
+            internAll(t.implementsTypes, ids, strings);
+        }
+        for (String[] a : model.associations) {
+            for (String s : a) intern(s, ids, strings);
+        }
+
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(strings.size());
+            for (String s : strings) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(model.types.size());
+            for (Map.Entry<String, UmlModel.UmlType> e : model.types.entrySet()) {
+                UmlModel.UmlType t = e.getValue();
+                int length = 4 * 4 + 1 + 4 * 4
+                        + 4 * (t.fields.size() + t.methods.size() + t.extendsTypes.size() + t.implementsTypes.size());
+                out.writeInt(length);
+                out.writeInt(id(e.getKey(), ids));
+                out.writeInt(id(t.name, ids));
+                out.writeInt(id(t.packageName, ids));
+                out.writeInt(id(t.qualifiedName, ids));
+                out.writeByte(t.kind == null ? -1 : t.kind.ordinal());
+                writeIds(out, t.fields, ids);
+                writeIds(out, t.methods, ids);
+                writeIds(out, t.extendsTypes, ids);
+                writeIds(out, t.implementsTypes, ids);
+            }
+            out.writeInt(model.associations.size());
+            for (String[] a : model.associations) {
+                out.writeInt(id(a[0], ids));
+                out.writeInt(id(a[1], ids));
+                out.writeInt(a.length > 2 ? id(a[2], ids) : -1);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static UmlModel read(Path file) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            return decode(buf);
+        } catch (RuntimeException e) { // BufferUnderflow, bad ids: a truncated or corrupt file
+            throw new IOException("Corrupt snapshot " + file + ": " + e, e);
+        }
+    }
+
+    private static UmlModel decode(ByteBuffer buf) throws IOException {
+        if (buf.remaining() < 8 || buf.getInt() != MAGIC) {
+            throw new IOException("Not a UML snapshot");
+        }
+        int version = buf.getInt();
+        if (version > VERSION) {
+            throw new IOException("Snapshot version " + version + " is newer than this reader (" + VERSION + ")");
+        }
+
+        String[] strings = new String[buf.getInt()];
+        byte[] scratch = new byte[256];
+        for (int i = 0; i < strings.length; i++) {
+            int len = buf.getInt();
+            if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+            buf.get(scratch, 0, len);
+            strings[i] = new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+
+        UmlModel model = new UmlModel();
+        int typeCount = buf.getInt();
+        model.types = new LinkedHashMap<>(Math.max(16, (int) (typeCount / 0.75f) + 1));
+        for (int i = 0; i < typeCount; i++) {
+            int length = buf.getInt();
+            int end = buf.position() + length;
+            String key = str(strings, buf.getInt());
+            UmlModel.UmlType t = new UmlModel.UmlType();
+            t.name = str(strings, buf.getInt());
+            t.packageName = str(strings, buf.getInt());
+            t.qualifiedName = str(strings, buf.getInt());
+            byte kind = buf.get();
+            t.kind = kind < 0 ? null : KINDS[kind];
+            t.fields = readIds(buf, strings);
+            t.methods = readIds(buf, strings);
+            t.extendsTypes = readIds(buf, strings);
+            t.implementsTypes = readIds(buf, strings);
+            buf.position(end); // skip anything a newer writer appended
+            model.types.put(key, t);
+        }
+
+        int assocCount = buf.getInt();
+        model.associations = new ArrayList<>(assocCount);
+        for (int i = 0; i < assocCount; i++) {
+            model.associations.add(new String[]{str(strings, buf.getInt()), str(strings, buf.getInt()), str(strings, buf.getInt())});
+        }
+        return model;
+    }
+
+    private static void intern(String s, Map<String, Integer> ids, List<String> strings) {
+        if (s != null && !ids.containsKey(s)) {
+            ids.put(s, strings.size());
+            strings.add(s);
+        }
+    }
+
+    private static void internAll(List<String> list, Map<String, Integer> ids, List<String> strings) {
+        for (String s : list) intern(s, ids, strings);
+    }
+
+    private static int id(String s, Map<String, Integer> ids) {
+        return s == null ? -1 : ids.get(s);
+    }
+
+    private static void writeIds(DataOutputStream out, List<String> list, Map<String, Integer> ids) throws IOException {
+        out.writeInt(list.size());
+        for (String s : list) out.writeInt(ids.get(s));
+    }
+
+    private static String str(String[] strings, int id) {
+        return id < 0 ? null : strings[id];
+    }
+
+    private static List<String> readIds(ByteBuffer buf, String[] strings) {
+        int n = buf.getInt();
+        List<String> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) list.add(strings[buf.getInt()]);
+        return list;
+    }
+}
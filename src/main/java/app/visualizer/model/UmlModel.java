@@ -7,6 +7,8 @@ public class UmlModel {
     public static class UmlType {
         public enum Kind { CLASS, INTERFACE, ENUM, RECORD }
         public String name;
+        public String packageName = "";
+        public String qualifiedName; // includes enclosing types, e.g. java.util.Map.Entry
         public Kind kind;
         public List<String> fields = new ArrayList<>();
         public List<String> methods = new ArrayList<>();
@@ -16,4 +18,5 @@ public class UmlModel {
 
     public Map<String, UmlType> types = new LinkedHashMap<>();
     public List<String[]> associations = new ArrayList<>(); // [fromType, toType, label]
+    public int modCount; // bumped by code that edits the model in place, so derived views can tell they are stale
 }
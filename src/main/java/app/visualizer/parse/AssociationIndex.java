@@ -0,0 +1,92 @@
+package app.visualizer.parse;
+
+import app.visualizer.model.UmlModel;
+
+import java.util.*;
+
+/**
+ * Association inference backed by hash lookups. A field type such as {@code Map<K, List<Customer>>} is tokenized
+ * into the simple names it mentions ({@code Map}, {@code K}, {@code List}, {@code Customer}) and each token is
+ * looked up in the model's type table, so the cost is linear in the number of field type tokens.
+ * <p>
+ * An instance additionally keeps a reverse index (token to the types whose fields mention it), which lets
+ * {@link IncrementalExtractor} find the types with edges into a changed type without scanning every field.
+ */
+public class AssociationIndex {
+    private final Map<String, Set<String>> referrers = new HashMap<>();
+
+    /** Replaces {@code model.associations} with one edge per (type, referenced known type) pair. */
+    public static void inferAll(UmlModel model) {
+        model.associations.clear();
+        for (UmlModel.UmlType t : model.types.values()) {
+            addOutgoing(model, t);
+        }
+    }
+
+    /** Adds the deduplicated associations going out of {@code t}'s fields. */
+    public static void addOutgoing(UmlModel model, UmlModel.UmlType t) {
+        for (String target : referencedNames(t)) {
+            if (!target.equals(t.name) && model.types.containsKey(target)) {
+                model.associations.add(new String[]{t.name, target, ""});
+            }
+        }
+    }
+
+    /** Simple names mentioned by the types of {@code t}'s fields, in first-seen order. */
+    public static Set<String> referencedNames(UmlModel.UmlType t) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String f : t.fields) {
+            tokenize(f.substring(f.indexOf(':') + 1), names);
+        }
+        return names;
+    }
+
+    /**
+     * Collects the simple name of every (possibly qualified) identifier in a type expression, so
+     * {@code java.util.List<com.shop.Order>[]} yields {@code List} and {@code Order}.
+     */
+    static void tokenize(String type, Set<String> out) {
+        int i = 0, n = type.length();
+        while (i < n) {
+            char c = type.charAt(i);
+            if (!Character.isJavaIdentifierStart(c)) {
+                i++;
+                continue;
+            }
+            int segStart = i;
+            while (i < n && (Character.isJavaIdentifierPart(type.charAt(i)) || type.charAt(i) == '.')) {
+                if (type.charAt(i) == '.') segStart = i + 1;
+                i++;
+            }
+            if (segStart < i) {
+                String name = type.substring(segStart, i);
+                if (!name.equals("extends") && !name.equals("super")) out.add(name);
+            }
+        }
+    }
+
+    /** Indexes every type of {@code model}. */
+    public void addAll(UmlModel model) {
+        model.types.values().forEach(this::add);
+    }
+
+    public void add(UmlModel.UmlType t) {
+        for (String name : referencedNames(t)) {
+            referrers.computeIfAbsent(name, k -> new LinkedHashSet<>()).add(t.name);
+        }
+    }
+
+    public void remove(UmlModel.UmlType t) {
+        for (String name : referencedNames(t)) {
+            Set<String> set = referrers.get(name);
+            if (set == null) continue;
+            set.remove(t.name);
+            if (set.isEmpty()) referrers.remove(name);
+        }
+    }
+
+    /** Names of the indexed types whose fields mention {@code target}. */
+    public Set<String> referrersOf(String target) {
+        return referrers.getOrDefault(target, Set.of());
+    }
+}
@@ -0,0 +1,172 @@
+package app.visualizer.parse;
+
+/**
+ * Cheap lexical pre-pass for shallow extraction: empties every member body
+ * (methods, constructors, initializers, field initializer blocks) while keeping type bodies intact, so the parser
+ * only builds declaration ASTs. Newlines are preserved to keep line numbers in error messages stable.
+ * <p>
+ * Member bodies that declare local types are left untouched, since the full parser reports those types too.
+ */
+final class DeclarationScanner {
+    private final String src;
+    private final int n;
+    private final StringBuilder out;
+    private int pos;
+    private char lastSignificant;
+
+    private DeclarationScanner(String src) {
+        this.src = src;
+        this.n = src.length();
+        this.out = new StringBuilder(src.length() / 2);
+    }
+
+    static String stripBodies(String src) {
+        return new DeclarationScanner(src).scan();
+    }
+
+    private String scan() {
+        boolean typeHeader = false; // saw class/interface/enum/record since the last ; { or }
+        while (pos < n) {
+            char c = src.charAt(pos);
+            if (c == '/' && pos + 1 < n && (src.charAt(pos + 1) == '/' || src.charAt(pos + 1) == '*')) {
+                // kept: the full parser attributes comments to declarations, and those show up in type strings
+                int end = commentEnd(pos);
+                out.append(src, pos, end);
+                pos = end;
+                continue;
+            }
+            if (c == '"' || c == '\'') {
+                int end = literalEnd(pos);
+                out.append(src, pos, end);
+                pos = end;
+                lastSignificant = c;
+                continue;
+            }
+            if (Character.isJavaIdentifierStart(c)) {
+                int end = identifierEnd(pos);
+                if (isTypeKeyword(pos, end)) typeHeader = true;
+                out.append(src, pos, end);
+                pos = end;
+                lastSignificant = 'a';
+                continue;
+            }
+            if (c == '{' && !typeHeader) {
+                elideMemberBody();
+                lastSignificant = '}';
+                continue;
+            }
+            if (c == '{' || c == '}' || c == ';') {
+                typeHeader = false;
+            }
+            if (!Character.isWhitespace(c)) lastSignificant = c;
+            out.append(c);
+            pos++;
+        }
+        return out.toString();
+    }
+
+    /** At a '{' that does not open a type: emit "{}" unless the block contains a local type declaration. */
+    private void elideMemberBody() {
+        int start = pos;
+        int newlines = 0;
+        int depth = 0;
+        boolean localType = false;
+        char last = lastSignificant;
+        while (pos < n) {
+            char c = src.charAt(pos);
+            if (c == '/' && pos + 1 < n && (src.charAt(pos + 1) == '/' || src.charAt(pos + 1) == '*')) {
+                int end = commentEnd(pos);
+                newlines += countNewlines(pos, end);
+                pos = end;
+                continue;
+            }
+            if (c == '"' || c == '\'') {
+                int end = literalEnd(pos);
+                newlines += countNewlines(pos, end);
+                pos = end;
+                last = c;
+                continue;
+            }
+            if (Character.isJavaIdentifierStart(c)) {
+                int end = identifierEnd(pos);
+                if (last != '.' && isTypeWord(pos, end)) localType = true;
+                pos = end;
+                last = 'a';
+                continue;
+            }
+            if (c == '\n') newlines++;
+            if (c == '{') depth++;
+            if (c == '}' && --depth == 0) {
+                pos++;
+                break;
+            }
+            if (!Character.isWhitespace(c)) last = c;
+            pos++;
+        }
+        if (localType) {
+            out.append(src, start, pos);
+            return;
+        }
+        out.append('{');
+        for (int i = 0; i < newlines; i++) out.append('\n');
+        out.append('}');
+    }
+
+    private int commentEnd(int i) {
+        if (src.charAt(i + 1) == '/') {
+            int end = src.indexOf('\n', i);
+            return end < 0 ? n : end; // the newline itself is kept by the caller
+        }
+        int end = src.indexOf("*/", i + 2);
+        return end < 0 ? n : end + 2;
+    }
+
+    private int literalEnd(int i) {
+        if (src.startsWith("\"\"\"", i)) {
+            int j = i + 3;
+            while (j < n) {
+                if (src.charAt(j) == '\\') j += 2;
+                else if (src.startsWith("\"\"\"", j)) return j + 3;
+                else j++;
+            }
+            return n;
+        }
+        char quote = src.charAt(i);
+        int j = i + 1;
+        while (j < n) {
+            char c = src.charAt(j);
+            if (c == '\\') j += 2;
+            else if (c == quote) return j + 1;
+            else if (c == '\n') return j; // unterminated; let the parser complain
+            else j++;
+        }
+        return n;
+    }
+
+    private int identifierEnd(int i) {
+        int j = i + 1;
+        while (j < n && Character.isJavaIdentifierPart(src.charAt(j))) j++;
+        return j;
+    }
+
+    private int countNewlines(int from, int to) {
+        int count = 0;
+        for (int i = from; i < to && i < n; i++) {
+            if (src.charAt(i) == '\n') count++;
+        }
+        return count;
+    }
+
+    // "Foo.class" is a class literal, not a declaration
+    private boolean isTypeKeyword(int start, int end) {
+        return lastSignificant != '.' && isTypeWord(start, end);
+    }
+
+    private boolean isTypeWord(int start, int end) {
+        int len = end - start;
+        return (len == 5 && src.startsWith("class", start))
+                || (len == 9 && src.startsWith("interface", start))
+                || (len == 4 && src.startsWith("enum", start))
+                || (len == 6 && src.startsWith("record", start));
+    }
+}
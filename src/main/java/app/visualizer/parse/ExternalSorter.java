@@ -0,0 +1,252 @@
+package app.visualizer.parse;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Sorts more records than fit in memory: records are buffered until their estimated heap size passes the budget,
+ * then sorted and written to a temporary run file. {@link #sorted()} merges the runs (and whatever is still
+ * buffered) with a k-way merge; with more than {@link #MAX_FAN_IN} runs they are first merged in groups, so the
+ * merge itself also reads through a bounded number of buffers. Run files are deleted by {@link #close()}.
+ */
+final class ExternalSorter<T> implements Closeable {
+    static final int MAX_FAN_IN = 64;
+    private static final int IO_BUFFER = 1 << 16;
+
+    /** Binary form of a record plus an estimate of its heap footprint. */
+    interface Codec<T> {
+        void write(DataOutputStream out, T value) throws IOException;
+
+        T read(DataInputStream in) throws IOException;
+
+        long heapBytes(T value);
+    }
+
+    /** A merged, sorted stream; I/O failures surface as {@link UncheckedIOException}. */
+    interface Sorted<T> extends Iterator<T>, Closeable {
+    }
+
+    private final Comparator<T> order;
+    private final Codec<T> codec;
+    private final long budgetBytes;
+    private final Path tempDir;
+    private final String name;
+    private final List<Run> runs = new ArrayList<>();
+    private List<T> buffer = new ArrayList<>();
+    private long bufferedBytes;
+    private long spilledBytes;
+    private int spills;
+
+    /**
+     * @param budgetBytes estimated heap the buffer may hold before it is spilled
+     * @param name        tag for the run files, e.g. {@code types}
+     */
+    ExternalSorter(Comparator<T> order, Codec<T> codec, long budgetBytes, Path tempDir, String name) {
+        this.order = order;
+        this.codec = codec;
+        this.budgetBytes = Math.max(1, budgetBytes);
+        this.tempDir = tempDir;
+        this.name = name;
+    }
+
+    void add(T value) throws IOException {
+        buffer.add(value);
+        bufferedBytes += codec.heapBytes(value) + 8; // + the list slot
+        if (bufferedBytes >= budgetBytes) spill();
+    }
+
+    /** Number of runs written to disk so far. */
+    int spills() {
+        return spills;
+    }
+
+    long spilledBytes() {
+        return spilledBytes;
+    }
+
+    /** Everything added so far, in order. Only call once; the sorter must not be added to afterwards. */
+    Sorted<T> sorted() throws IOException {
+        if (runs.isEmpty()) {
+            buffer.sort(order);
+            Iterator<T> it = buffer.iterator();
+            buffer = List.of();
+            return new Sorted<>() {
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                public T next() {
+                    return it.next();
+                }
+
+                public void close() {
+                }
+            };
+        }
+        if (!buffer.isEmpty()) spill();
+        while (runs.size() > MAX_FAN_IN) {
+            // merge the oldest runs into one, in their place, until a single merge can read all of them at once
+            List<Run> group = new ArrayList<>(runs.subList(0, MAX_FAN_IN));
+            Run merged = newRun();
+            try (Merge m = new Merge(group); DataOutputStream out = merged.writer()) {
+                while (m.hasNext()) {
+                    codec.write(out, m.next());
+                    merged.count++;
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(merged.file);
+                throw e;
+            }
+            runs.subList(0, MAX_FAN_IN).clear();
+            for (Run r : group) Files.deleteIfExists(r.file);
+            runs.add(0, merged);
+        }
+        return new Merge(runs);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = List.of();
+        for (Run r : runs) Files.deleteIfExists(r.file);
+        runs.clear();
+    }
+
+    private void spill() throws IOException {
+        buffer.sort(order);
+        Run run = newRun();
+        runs.add(run); // so close() deletes it even if the write fails
+        try (DataOutputStream out = run.writer()) {
+            for (T value : buffer) codec.write(out, value);
+            run.count = buffer.size();
+        }
+        spilledBytes += Files.size(run.file);
+        spills++;
+        buffer = new ArrayList<>();
+        bufferedBytes = 0;
+    }
+
+    private Run newRun() throws IOException {
+        Files.createDirectories(tempDir);
+        return new Run(Files.createTempFile(tempDir, "uml-" + name + "-", ".run"));
+    }
+
+    private static final class Run {
+        final Path file;
+        long count;
+
+        Run(Path file) {
+            this.file = file;
+        }
+
+        DataOutputStream writer() throws IOException {
+            return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER));
+        }
+    }
+
+    /** k-way merge over run files; the heap holds one record per run. */
+    private final class Merge implements Sorted<T> {
+        private final List<DataInputStream> inputs = new ArrayList<>();
+        private final long[] remaining;
+        private final PriorityQueue<Head> heads;
+
+        private record Head(Object value, int run) {
+        }
+
+        @SuppressWarnings("unchecked")
+        Merge(List<Run> group) throws IOException {
+            remaining = new long[group.size()];
+            heads = new PriorityQueue<>(Math.max(1, group.size()), (a, b) -> {
+                int c = order.compare((T) a.value, (T) b.value);
+                // equal keys keep run order, which is insertion order: spills are appended and group merges
+                // replace the oldest runs in place
+                return c != 0 ? c : Integer.compare(a.run, b.run);
+            });
+            try {
+                for (int i = 0; i < group.size(); i++) {
+                    inputs.add(new DataInputStream(new BufferedInputStream(Files.newInputStream(group.get(i).file), IO_BUFFER)));
+                    remaining[i] = group.get(i).count;
+                    advance(i);
+                }
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void advance(int run) throws IOException {
+            if (remaining[run] > 0) {
+                remaining[run]--;
+                heads.add(new Head(codec.read(inputs.get(run)), run));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            Head head = heads.poll();
+            if (head == null) throw new NoSuchElementException();
+            try {
+                advance(head.run);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return (T) head.value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (DataInputStream in : inputs) in.close();
+        }
+    }
+
+    // ---- helpers for codecs
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeStrings(DataOutputStream out, List<String> list) throws IOException {
+        out.writeInt(list.size());
+        for (String s : list) writeString(out, s);
+    }
+
+    static List<String> readStrings(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        List<String> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) list.add(readString(in));
+        return list;
+    }
+
+    /** Rough heap size of a String: header, array header, and (at worst) two bytes per char. */
+    static long heapBytes(String s) {
+        return s == null ? 0 : 56 + 2L * s.length();
+    }
+
+    static long heapBytes(List<String> list) {
+        long bytes = 40 + 8L * list.size();
+        for (String s : list) bytes += heapBytes(s);
+        return bytes;
+    }
+}
@@ -0,0 +1,189 @@
+package app.visualizer.parse;
+
+import app.visualizer.model.UmlModel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Keeps one {@link UmlModel} in sync with a source tree. Remembers which file declared which types so a batch of
+ * changed paths only re-parses those files, and re-infers only the associations of the affected types and of the
+ * types that refer to them instead of re-running inference over the whole model.
+ * <p>
+ * Types are resolved exactly as a full extraction resolves them: the first file in walk order to declare a simple
+ * name fixes its position in the diagram, the last one supplies the type. New files therefore trigger a re-walk (no
+ * re-parse) so they take their walk position, and each update re-resolves the type table from the per-file results.
+ */
+public class IncrementalExtractor {
+    private final JavaExtractor extractor;
+    private final Path root;
+    private final Map<Path, List<UmlModel.UmlType>> typesByFile = new LinkedHashMap<>();
+    private final AssociationIndex index = new AssociationIndex();
+    private UmlModel model;
+
+    public IncrementalExtractor(JavaExtractor extractor, Path root) {
+        this.extractor = extractor;
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public synchronized UmlModel getModel() {
+        return model;
+    }
+
+    /** Full extraction; must be called once before {@link #update}. */
+    public synchronized UmlModel build() throws IOException {
+        long start = System.nanoTime();
+        List<Path> files = extractor.listSources(root).stream().map(p -> p.toAbsolutePath().normalize()).toList();
+        extractor.phase("walk", start);
+        start = System.nanoTime();
+        List<List<UmlModel.UmlType>> results = extractor.parseAll(files);
+        extractor.phase("parse", start);
+
+        typesByFile.clear();
+        model = new UmlModel();
+        for (int i = 0; i < files.size(); i++) {
+            typesByFile.put(files.get(i), results.get(i));
+            results.get(i).forEach(t -> model.types.put(t.name, t));
+        }
+        start = System.nanoTime();
+        extractor.inferAssociations(model);
+        index.addAll(model);
+        extractor.phase("associations", start);
+        saveCache();
+        return model;
+    }
+
+    /**
+     * Applies a batch of created, modified or deleted paths (files or directories). With metrics on the extractor,
+     * the work adds up in the {@code update-parse} and {@code update-associations} phases.
+     *
+     * @return {@code true} if any type declaration actually changed
+     */
+    public synchronized boolean update(Collection<Path> changed) throws IOException {
+        long start = System.nanoTime();
+        Set<Path> toParse = new LinkedHashSet<>();
+        Set<Path> toRemove = new LinkedHashSet<>();
+        for (Path raw : changed) {
+            Path p = raw.toAbsolutePath().normalize();
+            if (Files.isDirectory(p)) {
+                // walked in the context of the root, so e.g. a fresh target/ or .gitignored folder adds nothing
+                extractor.getWalker().list(root, p).forEach(f -> toParse.add(f.toAbsolutePath().normalize()));
+                ownedUnder(p).stream().filter(f -> !Files.exists(f)).forEach(toRemove::add);
+            } else if (Files.exists(p)) {
+                if (p.toString().endsWith(".java") && !extractor.getWalker().isExcluded(root, p)) toParse.add(p);
+            } else {
+                // a deleted file, or a deleted directory whose children were never reported
+                toRemove.addAll(ownedUnder(p));
+            }
+        }
+        if (toParse.isEmpty() && toRemove.isEmpty()) {
+            extractor.phase("update-parse", start);
+            return false;
+        }
+
+        Set<String> affected = new LinkedHashSet<>();
+        for (Path f : toRemove) {
+            List<UmlModel.UmlType> old = typesByFile.remove(f);
+            if (old != null) old.forEach(t -> affected.add(t.name));
+        }
+
+        List<Path> parseList = new ArrayList<>(toParse);
+        List<List<UmlModel.UmlType>> results = extractor.parseAll(parseList);
+        boolean added = false;
+        for (int i = 0; i < parseList.size(); i++) {
+            List<UmlModel.UmlType> fresh = results.get(i);
+            List<UmlModel.UmlType> old = typesByFile.put(parseList.get(i), fresh);
+            if (old != null && sameDeclarations(old, fresh)) {
+                // e.g. a save without edits: keep the existing instances so nothing downstream changes
+                typesByFile.put(parseList.get(i), old);
+                continue;
+            }
+            if (old == null) added = true;
+            else old.forEach(t -> affected.add(t.name));
+            fresh.forEach(t -> affected.add(t.name));
+        }
+        if (added) reorderByWalk();
+        extractor.phase("update-parse", start);
+        if (affected.isEmpty()) {
+            saveCache();
+            return false;
+        }
+
+        start = System.nanoTime();
+
+        // same rule as a full extraction: first declaring file fixes the position, the last one wins; only
+        // affected names can resolve to a different instance
+        Map<String, UmlModel.UmlType> types = new LinkedHashMap<>(Math.max(16, (int) (model.types.size() / 0.75f) + 1));
+        for (List<UmlModel.UmlType> declared : typesByFile.values()) {
+            for (UmlModel.UmlType t : declared) types.put(t.name, t);
+        }
+        for (String name : affected) {
+            UmlModel.UmlType before = model.types.get(name), after = types.get(name);
+            if (before == after) continue;
+            if (before != null) index.remove(before);
+            if (after != null) index.add(after);
+        }
+        model.types = types;
+
+        // sources whose edges may change: the affected types and every type whose fields mention one of them
+        Set<String> sources = new LinkedHashSet<>(affected);
+        for (String name : affected) sources.addAll(index.referrersOf(name));
+        model.associations.removeIf(a -> sources.contains(a[0]) || affected.contains(a[1]));
+        for (String name : sources) {
+            UmlModel.UmlType t = model.types.get(name);
+            if (t != null) AssociationIndex.addOutgoing(model, t);
+        }
+        // back into type order (the sort is stable), so the diagram matches a full extraction
+        Map<String, Integer> position = new HashMap<>();
+        for (String name : model.types.keySet()) position.put(name, position.size());
+        model.associations.sort(Comparator.comparingInt(a -> position.get(a[0])));
+        model.modCount++;
+        extractor.phase("update-associations", start);
+        saveCache();
+        return true;
+    }
+
+    // new files go where a full walk would list them, since walk order decides which declaration wins
+    private void reorderByWalk() throws IOException {
+        Map<Path, List<UmlModel.UmlType>> ordered = new LinkedHashMap<>();
+        for (Path f : extractor.listSources(root)) {
+            Path p = f.toAbsolutePath().normalize();
+            List<UmlModel.UmlType> types = typesByFile.get(p);
+            if (types != null) ordered.put(p, types);
+        }
+        typesByFile.forEach(ordered::putIfAbsent); // e.g. deleted again before the walk got there
+        typesByFile.clear();
+        typesByFile.putAll(ordered);
+    }
+
+    private List<Path> ownedUnder(Path p) {
+        return typesByFile.keySet().stream().filter(f -> f.startsWith(p)).toList();
+    }
+
+    private void saveCache() throws IOException {
+        if (extractor.getCache() != null) {
+            long start = System.nanoTime();
+            extractor.getCache().save();
+            extractor.phase("cache-save", start);
+        }
+    }
+
+    private static boolean sameDeclarations(List<UmlModel.UmlType> a, List<UmlModel.UmlType> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            UmlModel.UmlType x = a.get(i), y = b.get(i);
+            if (!x.name.equals(y.name) || !Objects.equals(x.qualifiedName, y.qualifiedName) || x.kind != y.kind
+                    || !x.fields.equals(y.fields) || !x.methods.equals(y.methods)
+                    || !x.extendsTypes.equals(y.extendsTypes) || !x.implementsTypes.equals(y.implementsTypes)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
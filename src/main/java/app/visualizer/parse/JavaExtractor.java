@@ -1,35 +1,426 @@
 package app.visualizer.parse;
 
+import app.visualizer.metrics.Metrics;
+import app.visualizer.model.CompactModel;
 import app.visualizer.model.UmlModel;
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.*;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 //Created By: Jose Torres
 public class JavaExtractor {
+    /** Receives phase changes and per-file parse progress; called from parser workers, so it must be thread-safe. */
+    public interface ProgressListener {
+        void onProgress(String phase, int done, int total);
+    }
+
+    private final int threads;
+    private ParseCache cache;
+    private boolean autoSaveCache = true;
+    private boolean shallow;
+    private Metrics metrics;
+    private ProgressListener progress;
+    private SourceWalker walker;
+    private ExecutorService executor;
+
+    // JavaParser instances are not thread-safe, so every worker gets its own parser and configuration; the
+    // configuration is the same for every extractor, so extractors sharing a pool also share its warm parsers
+    private static final ThreadLocal<JavaParser> PARSER = ThreadLocal.withInitial(() -> new JavaParser(new ParserConfiguration()));
+
+    public JavaExtractor() {
+        this(1);
+    }
+
+    /** @param threads number of parser workers; 1 parses on the calling thread */
+    public JavaExtractor(int threads) {
+        this.threads = Math.max(1, threads);
+        this.walker = new SourceWalker(this.threads);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /** Enables the persistent per-file cache; {@code null} disables it. */
+    public void setCache(ParseCache cache) {
+        this.cache = cache;
+    }
+
+    public ParseCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Whether every extract writes the cache back to disk (the default). Callers running several extractors over one
+     * shared cache turn this off and {@link ParseCache#save} once when they are all done.
+     */
+    public void setAutoSaveCache(boolean autoSaveCache) {
+        this.autoSaveCache = autoSaveCache;
+    }
+
+    /**
+     * Declaration-only parsing: method, constructor and initializer bodies are dropped before parsing since the
+     * model only needs type headers, fields and signatures. Produces the same model as a full parse for every file
+     * the full parser accepts; files whose only problems are inside bodies are additionally accepted.
+     */
+    public void setShallow(boolean shallow) {
+        this.shallow = shallow;
+    }
+
+    public boolean isShallow() {
+        return shallow;
+    }
+
+    /** Records walk/parse/association phases, per-file timings and failures; {@code null} disables it. */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public void setProgressListener(ProgressListener progress) {
+        this.progress = progress;
+    }
+
+    /** Decides which files are sources: pruning, {@code .gitignore} and extra patterns. */
+    public void setWalker(SourceWalker walker) {
+        this.walker = walker;
+    }
+
+    public SourceWalker getWalker() {
+        return walker;
+    }
+
+    /**
+     * Parses on a pool shared with other extractors instead of starting one per extraction; the pool is never shut
+     * down here. {@code null} (the default) goes back to a private pool of {@code threads} workers.
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /** @param srcRoot a source folder, or a {@code .zip}/{@code .jar} archive read in place */
     public UmlModel extract(Path srcRoot) throws IOException {
+        return extract(List.of(srcRoot));
+    }
+
+    /** Several roots into one model; they are walked concurrently and merged in the given order. */
+    public UmlModel extract(List<Path> srcRoots) throws IOException {
+        List<List<UmlModel.UmlType>> results = parseSources(srcRoots);
+
+        // Merge in walk order so the model (and the rendered diagram) matches a sequential run exactly
         UmlModel model = new UmlModel();
-        Files.walk(srcRoot)
-             .filter(p -> p.toString().endsWith(".java"))
-             .forEach(p -> parseFile(p, model));
+        results.forEach(types -> types.forEach(t -> model.types.put(t.name, t)));
+        long start = System.nanoTime();
+        report("associations", 0, 0);
         inferAssociations(model);
+        phase("associations", start);
+        saveCache();
+        if (metrics != null) {
+            long inheritance = model.types.values().stream().mapToLong(t -> t.extendsTypes.size() + t.implementsTypes.size()).sum();
+            metrics.count("types", model.types.size());
+            metrics.count("edges", inheritance + model.associations.size());
+        }
+        return model;
+    }
+
+    /**
+     * Extracts straight into a {@link CompactModel}: types are kept per qualified name, so same-named types in
+     * different packages no longer overwrite each other, and no intermediate {@link UmlModel} is built. Parsed types
+     * are interned file by file as they are parsed, so peak memory is the compact tables plus a bounded window of
+     * files in flight (and the parse cache's own entries, when one is set).
+     */
+    public CompactModel extractCompact(Path srcRoot) throws IOException {
+        return extractCompact(List.of(srcRoot));
+    }
+
+    public CompactModel extractCompact(List<Path> srcRoots) throws IOException {
+        CompactModel.Builder builder = new CompactModel.Builder();
+        withSources(srcRoots, files -> {
+            // each file's types are interned as they arrive and then dropped, so no UmlModel.UmlType outlives
+            // the few files in flight
+            long start = System.nanoTime();
+            parseInOrder(files, types -> {
+                for (UmlModel.UmlType t : types) {
+                    int id = builder.addType(t);
+                    AssociationIndex.referencedNames(t).forEach(name -> builder.addAssociation(id, name));
+                }
+            });
+            phase("parse", start);
+            return null;
+        });
+        long start = System.nanoTime();
+        report("associations", 0, 0);
+        CompactModel model = builder.build();
+        phase("associations", start);
+        saveCache();
+        if (metrics != null) {
+            long edges = 0;
+            for (CompactModel.EdgeKind kind : CompactModel.EdgeKind.values()) edges += model.edgeCount(kind);
+            metrics.count("types", model.typeCount());
+            metrics.count("edges", edges);
+        }
         return model;
     }
 
-    private void parseFile(Path file, UmlModel model) {
+    /** True for {@code .zip} and {@code .jar} files (including {@code -sources.jar}). */
+    public static boolean isArchive(Path path) {
+        String name = path.getFileName() == null ? "" : path.getFileName().toString().toLowerCase();
+        return (name.endsWith(".zip") || name.endsWith(".jar")) && Files.isRegularFile(path);
+    }
+
+    private List<List<UmlModel.UmlType>> parseSources(List<Path> srcRoots) throws IOException {
+        return withSources(srcRoots, this::timedParseAll);
+    }
+
+    /** Work on the files of a walk, run while any archives among the roots are still mounted. */
+    interface SourceTask<R> {
+        R run(List<Path> files) throws IOException;
+    }
+
+    // Archives are mounted as a zip FileSystem: the walk only reads the central directory, and each .java entry is
+    // inflated straight into memory by the worker that parses it. Nothing is extracted to disk.
+    <R> R withSources(List<Path> srcRoots, SourceTask<R> task) throws IOException {
+        report("walk", 0, 0);
+        List<FileSystem> archives = new ArrayList<>();
         try {
-            CompilationUnit cu = StaticJavaParser.parse(file);
-            cu.findAll(TypeDeclaration.class).forEach(td -> {
+            long start = System.nanoTime();
+            List<Path> walkRoots = new ArrayList<>();
+            for (Path srcRoot : srcRoots) {
+                if (isArchive(srcRoot)) {
+                    FileSystem archive = FileSystems.newFileSystem(srcRoot);
+                    archives.add(archive);
+                    archive.getRootDirectories().forEach(walkRoots::add);
+                } else {
+                    walkRoots.add(srcRoot);
+                }
+            }
+            List<Path> files = walker.list(walkRoots);
+            phase("walk", start);
+            return task.run(files);
+        } finally {
+            for (FileSystem archive : archives) archive.close();
+        }
+    }
+
+    private List<List<UmlModel.UmlType>> timedParseAll(List<Path> files) throws IOException {
+        long start = System.nanoTime();
+        List<List<UmlModel.UmlType>> results = parseAll(files);
+        phase("parse", start);
+        return results;
+    }
+
+    private void saveCache() throws IOException {
+        if (cache != null && autoSaveCache) {
+            long start = System.nanoTime();
+            cache.save();
+            phase("cache-save", start);
+        }
+    }
+
+    void report(String phase, int done, int total) {
+        if (progress != null) {
+            progress.onProgress(phase, done, total);
+        }
+    }
+
+    void phase(String name, long startNanos) {
+        if (metrics != null) {
+            metrics.addPhase(name, System.nanoTime() - startNanos);
+        }
+    }
+
+    List<Path> listSources(Path srcRoot) throws IOException {
+        return walker.list(srcRoot);
+    }
+
+    /** Receives one file's types; see {@link #parseInOrder}. */
+    interface TypeSink {
+        void accept(List<UmlModel.UmlType> types) throws IOException;
+    }
+
+    /**
+     * Parses every file and hands each one's types to {@code sink} on the calling thread, in input order. Unlike
+     * {@link #parseAll} nothing is collected: a feeder keeps at most twice as many files in flight as there are
+     * workers, so parsing can only run a few files ahead of the sink (backpressure).
+     */
+    void parseInOrder(List<Path> files, TypeSink sink) throws IOException {
+        int[] done = {0};
+        report("parse", 0, files.size());
+        ExecutorService shared = executor;
+        if (shared == null && (threads <= 1 || files.size() <= 1)) {
+            for (Path f : files) {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Extraction cancelled");
+                sink.accept(parseFile(f));
+                report("parse", ++done[0], files.size());
+            }
+            return;
+        }
+
+        ExecutorService pool = shared != null ? shared : Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "uml-parse-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        BlockingQueue<Future<List<UmlModel.UmlType>>> window = new ArrayBlockingQueue<>(2 * threads);
+        Future<List<UmlModel.UmlType>> end = CompletableFuture.completedFuture(List.of());
+        Thread feeder = new Thread(() -> {
+            try {
+                for (Path f : files) window.put(pool.submit(() -> parseFile(f)));
+                window.put(end);
+            } catch (InterruptedException e) {
+                // the consumer gave up
+            }
+        }, "uml-parse-feeder");
+        feeder.setDaemon(true);
+        feeder.start();
+        try {
+            for (Future<List<UmlModel.UmlType>> next = window.take(); next != end; next = window.take()) {
+                sink.accept(next.get());
+                report("parse", ++done[0], files.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Extraction cancelled");
+        } catch (ExecutionException e) {
+            throw new IOException("Extraction failed", e.getCause());
+        } finally {
+            feeder.interrupt();
+            for (Future<?> f : window) f.cancel(true);
+            if (shared == null) pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses every file, returning one (possibly empty) type list per file in input order. Interrupting the calling
+     * thread cancels the remaining files with an {@link InterruptedIOException}.
+     */
+    List<List<UmlModel.UmlType>> parseAll(List<Path> files) throws IOException {
+        AtomicInteger done = new AtomicInteger();
+        report("parse", 0, files.size());
+        if ((threads > 1 || executor != null) && files.size() > 1) {
+            return parseParallel(files, done);
+        }
+        List<List<UmlModel.UmlType>> results = new ArrayList<>(files.size());
+        for (Path p : files) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Extraction cancelled");
+            }
+            results.add(parseFile(p));
+            report("parse", done.incrementAndGet(), files.size());
+        }
+        return results;
+    }
+
+    private List<List<UmlModel.UmlType>> parseParallel(List<Path> files, AtomicInteger done) throws IOException {
+        ExecutorService shared = executor;
+        ExecutorService pool = shared != null ? shared : Executors.newFixedThreadPool(Math.min(threads, files.size()), r -> {
+            Thread t = new Thread(r, "uml-parse-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<List<UmlModel.UmlType>>> futures = new ArrayList<>(files.size());
+        try {
+            for (Path p : files) {
+                futures.add(pool.submit(() -> {
+                    if (Thread.currentThread().isInterrupted()) return List.<UmlModel.UmlType>of(); // pool shut down
+                    List<UmlModel.UmlType> types = parseFile(p);
+                    report("parse", done.incrementAndGet(), files.size());
+                    return types;
+                }));
+            }
+            List<List<UmlModel.UmlType>> results = new ArrayList<>(files.size());
+            for (Future<List<UmlModel.UmlType>> f : futures) {
+                results.add(f.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Extraction cancelled");
+        } catch (ExecutionException e) {
+            throw new IOException("Extraction failed", e.getCause());
+        } finally {
+            if (shared == null) pool.shutdownNow();
+            else futures.forEach(f -> f.cancel(true)); // no-op once done; frees the shared pool after a failure
+        }
+    }
+
+    /** Parses one file into its types; never touches shared state so it can run on any worker. */
+    List<UmlModel.UmlType> parseFile(Path file) {
+        long start = System.nanoTime();
+        long[] bytesRead = {0};
+        try {
+            if (cache != null) {
+                return cache.lookup(file, shallow, content -> {
+                    bytesRead[0] = content.length;
+                    return parseSource(file, content);
+                });
+            }
+            byte[] content = Files.readAllBytes(file);
+            bytesRead[0] = content.length;
+            List<UmlModel.UmlType> types = parseSource(file, content);
+            return types == null ? List.of() : types;
+        } catch (Exception e) {
+            failed(file, e);
+            return List.of();
+        } finally {
+            if (metrics != null) {
+                metrics.recordFile(file, System.nanoTime() - start, bytesRead[0]);
+            }
+        }
+    }
+
+    private void failed(Path file, Exception e) {
+        System.err.println("Failed to parse " + file + ": " + e.getMessage());
+        if (metrics != null) {
+            metrics.recordFailure(file, e.getMessage());
+        }
+    }
+
+    /** @return the declared types, or {@code null} if the source could not be parsed */
+    private List<UmlModel.UmlType> parseSource(Path file, byte[] content) {
+        List<UmlModel.UmlType> types = new ArrayList<>();
+        try {
+            String code = new String(content, StandardCharsets.UTF_8);
+            ParseResult<CompilationUnit> result = null;
+            if (shallow) {
+                result = PARSER.get().parse(DeclarationScanner.stripBodies(code));
+            }
+            if (result == null || !result.isSuccessful()) {
+                result = PARSER.get().parse(code); // also the fallback should the scanner ever produce bad source
+            }
+            ParseResult<CompilationUnit> parsed = result;
+            CompilationUnit cu = parsed.getResult()
+                    .filter(c -> parsed.isSuccessful())
+                    .orElseThrow(() -> new IllegalStateException(parsed.getProblems().isEmpty()
+                            ? "unknown problem" : parsed.getProblem(0).getVerboseMessage()));
+            String packageName = cu.getPackageDeclaration().map(pd -> pd.getNameAsString()).orElse("");
+            for (TypeDeclaration<?> td : cu.findAll(TypeDeclaration.class)) {
                 if (!(td instanceof ClassOrInterfaceDeclaration || td instanceof EnumDeclaration || td instanceof RecordDeclaration))
-                    return;
+                    continue;
 
                 UmlModel.UmlType t = new UmlModel.UmlType();
                 t.name = td.getNameAsString();
+                t.packageName = packageName;
+                String fqn = td.getFullyQualifiedName().orElse(null); // empty for local classes
+                t.qualifiedName = fqn != null ? fqn : packageName.isEmpty() ? t.name : packageName + "." + t.name;
                 if (td instanceof ClassOrInterfaceDeclaration ci) {
                     t.kind = ci.isInterface() ? UmlModel.UmlType.Kind.INTERFACE : UmlModel.UmlType.Kind.CLASS;
                     ci.getExtendedTypes().forEach(et -> t.extendsTypes.add(simpleName(et)));
@@ -42,29 +433,21 @@ public class JavaExtractor {
                 } else {
                     t.kind = UmlModel.UmlType.Kind.RECORD;
                 }
-                model.types.put(t.name, t);
-            });
+                types.add(t);
+            }
         } catch (Exception e) {
-            System.err.println("Failed to parse " + file + ": " + e.getMessage());
+            failed(file, e);
+            return null;
         }
+        return types;
     }
 
     private String simpleName(ClassOrInterfaceType t) {
         return t.getNameWithScope();
     }
 
-    /** Very light association heuristic: field types referencing other known types */
-    private void inferAssociations(UmlModel model) {
-        for (UmlModel.UmlType t : model.types.values()) {
-            for (String f : t.fields) {
-                String rhs = f.substring(f.indexOf(':') + 1).trim();
-                String base = rhs.replaceAll("<.*>", "").trim();
-                for (String candidate : model.types.keySet()) {
-                    if (base.endsWith(candidate) && !candidate.equals(t.name)) {
-                        model.associations.add(new String[]{t.name, candidate, ""});
-                    }
-                }
-            }
-        }
+    /** Very light association heuristic: field types (including generic arguments) referencing other known types */
+    void inferAssociations(UmlModel model) {
+        AssociationIndex.inferAll(model);
     }
 }
@@ -0,0 +1,279 @@
+package app.visualizer.parse;
+
+import app.visualizer.model.UmlModel;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Persistent cache of per-file extraction results, stored as one deflated binary file in a cache directory.
+ * Entries are keyed by absolute path and validated by size + mtime first; only when the stamp differs is the
+ * file read and its SHA-256 compared, so a warm run over an unchanged tree only stats files. Shallow and full
+ * parses of the same file are separate entries.
+ */
+public class ParseCache {
+    private static final int MAGIC = 0x554D4C43; // "UMLC"
+    private static final int VERSION = 3;
+    private static final String SHALLOW = "shallow:"; // key prefix: shallow results may cover files a full parse rejects
+    private static final String FILE_NAME = "parse-cache.bin";
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> seen = ConcurrentHashMap.newKeySet(); // looked up since the last save, so known to exist
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private volatile boolean dirty;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private static final class Entry {
+        final long size;
+        final long mtime;
+        final byte[] hash;
+        final List<UmlModel.UmlType> types;
+
+        Entry(long size, long mtime, byte[] hash, List<UmlModel.UmlType> types) {
+            this.size = size;
+            this.mtime = mtime;
+            this.hash = hash;
+            this.types = types;
+        }
+    }
+
+    private ParseCache(Path dir) {
+        this.file = dir.resolve(FILE_NAME);
+    }
+
+    /** Opens (and loads, if present) the cache stored under {@code dir}. An unreadable cache is discarded. */
+    public static ParseCache open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        ParseCache cache = new ParseCache(dir);
+        if (Files.exists(cache.file)) {
+            try {
+                cache.load();
+            } catch (IOException | RuntimeException e) { // bad kind ordinals or lengths in a corrupt file
+                System.err.println("Ignoring unreadable parse cache " + cache.file + ": " + e);
+                cache.entries.clear();
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the cached types for {@code path}, or parses its raw content with {@code parser} and remembers the result.
+     * Returned types are fresh copies, so callers may mutate them freely.
+     *
+     * @param shallow whether {@code parser} is the declaration-only one
+     */
+    List<UmlModel.UmlType> lookup(Path path, boolean shallow, Function<byte[], List<UmlModel.UmlType>> parser) throws IOException {
+        String key = shallow ? SHALLOW + key(path) : key(path);
+        seen.add(key);
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attrs.size();
+        long mtime = attrs.lastModifiedTime().toMillis();
+
+        Entry e = entries.get(key);
+        if (e != null && e.size == size && e.mtime == mtime) {
+            hits.incrementAndGet();
+            return copyOf(e.types);
+        }
+
+        byte[] content = Files.readAllBytes(path);
+        byte[] hash = SHA256.get().digest(content);
+        if (e != null && Arrays.equals(e.hash, hash)) {
+            // touched but unchanged: refresh the stamp so the next run is stat-only again
+            entries.put(key, new Entry(size, mtime, hash, e.types));
+            dirty = true;
+            hits.incrementAndGet();
+            return copyOf(e.types);
+        }
+
+        misses.incrementAndGet();
+        List<UmlModel.UmlType> types = parser.apply(content);
+        if (types != null) {
+            entries.put(key, new Entry(size, mtime, hash, copyOf(types)));
+            dirty = true;
+        }
+        return types == null ? List.of() : types;
+    }
+
+    // Archive entries are keyed by their jar: URI so entries of different archives never collide with each other
+    // or with plain files
+    private static String key(Path path) {
+        return path.getFileSystem() == FileSystems.getDefault()
+                ? path.toAbsolutePath().normalize().toString()
+                : path.toUri().toString();
+    }
+
+    // An archive entry is kept while its archive exists; it is re-validated by size and mtime on the next lookup
+    private static boolean exists(String key) {
+        if (key.startsWith(SHALLOW)) key = key.substring(SHALLOW.length());
+        int bang = key.indexOf("!/");
+        if (key.startsWith("jar:") && bang > 0) {
+            try {
+                return Files.exists(Paths.get(URI.create(key.substring(4, bang))));
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+        return Files.exists(Paths.get(key));
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    public void resetCounters() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Writes the cache back to disk if anything changed, dropping entries for files that no longer exist. Files
+     * looked up since the previous save are known to exist; every other entry is checked, so in a long-lived session
+     * a file deleted after its lookup is dropped by the next save but one.
+     */
+    public synchronized void save() throws IOException {
+        for (Iterator<String> it = entries.keySet().iterator(); it.hasNext(); ) {
+            String key = it.next();
+            if (!seen.contains(key) && !exists(key)) {
+                it.remove();
+                dirty = true;
+            }
+        }
+        seen.clear();
+        if (!dirty) return;
+        dirty = false; // lookups racing with the write set it again, so their entries reach the next save
+
+        Path tmp = file.resolveSibling(FILE_NAME + ".tmp");
+        try {
+            write(tmp);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            dirty = true;
+            throw e;
+        }
+    }
+
+    private void write(Path tmp) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new DeflaterOutputStream(Files.newOutputStream(tmp)), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> me : entries.entrySet()) {
+                Entry e = me.getValue();
+                writeString(out, me.getKey());
+                out.writeLong(e.size);
+                out.writeLong(e.mtime);
+                out.writeShort(e.hash.length);
+                out.write(e.hash);
+                out.writeInt(e.types.size());
+                for (UmlModel.UmlType t : e.types) {
+                    writeString(out, t.name);
+                    writeString(out, t.packageName);
+                    writeString(out, t.qualifiedName == null ? "" : t.qualifiedName);
+                    out.writeByte(t.kind.ordinal());
+                    writeList(out, t.fields);
+                    writeList(out, t.methods);
+                    writeList(out, t.extendsTypes);
+                    writeList(out, t.implementsTypes);
+                }
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        UmlModel.UmlType.Kind[] kinds = UmlModel.UmlType.Kind.values();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(Files.newInputStream(file)), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("unsupported cache format");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = readString(in);
+                long size = in.readLong();
+                long mtime = in.readLong();
+                byte[] hash = new byte[in.readShort()];
+                in.readFully(hash);
+                int typeCount = in.readInt();
+                List<UmlModel.UmlType> types = new ArrayList<>(typeCount);
+                for (int j = 0; j < typeCount; j++) {
+                    UmlModel.UmlType t = new UmlModel.UmlType();
+                    t.name = readString(in);
+                    t.packageName = readString(in);
+                    t.qualifiedName = readString(in);
+                    t.kind = kinds[in.readByte()];
+                    readList(in, t.fields);
+                    readList(in, t.methods);
+                    readList(in, t.extendsTypes);
+                    readList(in, t.implementsTypes);
+                    types.add(t);
+                }
+                entries.put(key, new Entry(size, mtime, hash, types));
+            }
+        }
+    }
+
+    private static List<UmlModel.UmlType> copyOf(List<UmlModel.UmlType> types) {
+        List<UmlModel.UmlType> copy = new ArrayList<>(types.size());
+        for (UmlModel.UmlType src : types) {
+            UmlModel.UmlType t = new UmlModel.UmlType();
+            t.name = src.name;
+            t.packageName = src.packageName;
+            t.qualifiedName = src.qualifiedName;
+            t.kind = src.kind;
+            t.fields.addAll(src.fields);
+            t.methods.addAll(src.methods);
+            t.extendsTypes.addAll(src.extendsTypes);
+            t.implementsTypes.addAll(src.implementsTypes);
+            copy.add(t);
+        }
+        return copy;
+    }
+
+    private static void writeList(DataOutputStream out, List<String> list) throws IOException {
+        out.writeInt(list.size());
+        for (String s : list) writeString(out, s);
+    }
+
+    private static void readList(DataInputStream in, List<String> list) throws IOException {
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) list.add(readString(in));
+    }
+
+    // length-prefixed UTF-8; writeUTF would cap strings at 64 KB
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] b = new byte[in.readInt()];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
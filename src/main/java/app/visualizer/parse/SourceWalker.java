@@ -0,0 +1,288 @@
+package app.visualizer.parse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the {@code .java} files under one or more roots with {@link Files#walkFileTree}, pruning excluded directories
+ * before descending into them:
+ * <ul>
+ *   <li>VCS, IDE and tool folders ({@code .git}, {@code node_modules}, {@code generated-sources}, ...) anywhere;</li>
+ *   <li>{@code target} and {@code build} directly inside a Maven/Gradle module root, i.e. build output (a package
+ *       named {@code build} elsewhere is kept);</li>
+ *   <li>anything matched by a {@code .gitignore} on the way down, nearer files overriding outer ones;</li>
+ *   <li>extra patterns in the same syntax from {@link #setPatterns}, evaluated last; {@code !pattern} re-includes.</li>
+ * </ul>
+ * Module roots ({@code pom.xml}, {@code build.gradle}) and separate roots are walked concurrently; the combined list
+ * is always in the order a single sequential walk would produce.
+ */
+public class SourceWalker {
+    public static final List<String> DEFAULT_EXCLUDES = List.of(
+            ".git/", ".hg/", ".svn/", ".gradle/", ".idea/", "node_modules/", "generated-sources/", "generated-test-sources/");
+    private static final List<String> BUILD_FILES = List.of("pom.xml", "build.gradle", "build.gradle.kts");
+    private static final Set<String> BUILD_OUTPUT = Set.of("target", "build");
+
+    private final int threads;
+    private boolean useGitignore = true;
+    private List<String> patterns = List.of();
+
+    /** @param threads walker threads; 1 walks every module and root in turn on the calling thread */
+    public SourceWalker(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /** Honour {@code .gitignore} files (default on). */
+    public void setUseGitignore(boolean useGitignore) {
+        this.useGitignore = useGitignore;
+    }
+
+    /** Extra gitignore-style patterns relative to each walked root, e.g. {@code legacy/}, {@code *Test.java}, {@code !keep/}. */
+    public void setPatterns(List<String> patterns) {
+        this.patterns = List.copyOf(patterns);
+    }
+
+    public static boolean isModuleRoot(Path dir) {
+        for (String f : BUILD_FILES) {
+            if (Files.isRegularFile(dir.resolve(f))) return true;
+        }
+        return false;
+    }
+
+    /** Every source file under {@code root}, in walk order. */
+    public List<Path> list(Path root) throws IOException {
+        return list(List.of(root));
+    }
+
+    /** Every source file under each root, roots walked concurrently, concatenated in root order. */
+    public List<Path> list(List<Path> roots) throws IOException {
+        ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "uml-walker");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+        try {
+            List<Object> segments = new ArrayList<>();
+            for (Path root : roots) {
+                Layer base = baseLayer(root);
+                if (pool != null) segments.add(pool.submit(() -> walk(root, base, pool)));
+                else segments.addAll(walk(root, base, null));
+            }
+            List<Path> files = new ArrayList<>();
+            flatten(segments, files);
+            return files;
+        } finally {
+            if (pool != null) pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Source files under {@code start}, a directory somewhere inside {@code root}, with the same exclusions a walk
+     * of the whole root would apply (so a new {@code target/} reported by a watcher yields nothing).
+     */
+    public List<Path> list(Path root, Path start) throws IOException {
+        Layer layer = layerFor(root, start);
+        return layer == null ? List.of() : flattenNow(walk(start, layer, null));
+    }
+
+    /** Whether a walk of {@code root} would skip {@code path} (a file or directory inside it). */
+    public boolean isExcluded(Path root, Path path) throws IOException {
+        if (path.equals(root)) return false;
+        Path parent = path.getParent();
+        Layer layer = parent == null ? null : layerFor(root, parent);
+        return layer == null || layer.excluded(path, Files.isDirectory(path), isModuleRoot(parent));
+    }
+
+    // the layer in effect inside dir, or null if dir itself (or an ancestor) is excluded
+    private Layer layerFor(Path root, Path dir) throws IOException {
+        Layer layer = baseLayer(root);
+        if (!dir.startsWith(root)) return layer;
+        Path rel = root.relativize(dir);
+        Path current = root;
+        for (Path part : rel) {
+            if (part.toString().isEmpty()) continue;
+            boolean parentIsModule = isModuleRoot(current);
+            current = current.resolve(part.toString());
+            if (layer.excluded(current, true, parentIsModule)) return null;
+            layer = layer.enter(current);
+        }
+        return layer;
+    }
+
+    private Layer baseLayer(Path root) throws IOException {
+        return new Layer(null, root, parse(DEFAULT_EXCLUDES), root, parse(patterns)).enter(root);
+    }
+
+    /**
+     * Walks one tree. Returns the files in walk order, with a {@link Future} standing in for each nested module that
+     * was handed to the pool, so the caller can splice everything back into sequential order.
+     */
+    private List<Object> walk(Path start, Layer startLayer, ExecutorService pool) throws IOException {
+        List<Object> out = new ArrayList<>();
+        Map<Path, Layer> layers = new HashMap<>();
+        Set<Path> modules = new HashSet<>();
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Layer layer;
+                if (dir.equals(start)) {
+                    layer = startLayer;
+                } else {
+                    Layer parent = layers.get(dir.getParent());
+                    if (parent.excluded(dir, true, modules.contains(dir.getParent()))) return FileVisitResult.SKIP_SUBTREE;
+                    layer = parent.enter(dir);
+                }
+                boolean module = isModuleRoot(dir);
+                if (module && pool != null && !dir.equals(start)) {
+                    Layer moduleLayer = layer;
+                    out.add(pool.submit(() -> walk(dir, moduleLayer, pool)));
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (module) modules.add(dir);
+                layers.put(dir, layer);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (file.toString().endsWith(".java")) {
+                    Path dir = file.getParent();
+                    Layer layer = layers.get(dir);
+                    if (layer == null || !layer.excluded(file, false, modules.contains(dir))) out.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                layers.remove(dir);
+                if (exc != null) throw exc;
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void flatten(List<Object> segments, List<Path> files) throws IOException {
+        try {
+            for (Object o : segments) {
+                if (o instanceof Path p) files.add(p);
+                else flatten(((Future<List<Object>>) o).get(), files);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Walk cancelled");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Walk failed", e.getCause());
+        }
+    }
+
+    private static List<Path> flattenNow(List<Object> segments) throws IOException {
+        List<Path> files = new ArrayList<>();
+        flatten(segments, files);
+        return files;
+    }
+
+    /** The rules of one directory's {@code .gitignore}, chained to those of its ancestors. */
+    private final class Layer {
+        final Layer parent;
+        final Path base;
+        final List<Rule> rules;
+        final Path root;
+        final List<Rule> overrides; // setPatterns(), relative to the walked root and applied after every .gitignore
+
+        Layer(Layer parent, Path base, List<Rule> rules, Path root, List<Rule> overrides) {
+            this.parent = parent;
+            this.base = base;
+            this.rules = rules;
+            this.root = root;
+            this.overrides = overrides;
+        }
+
+        Layer enter(Path dir) throws IOException {
+            Path file = dir.resolve(".gitignore");
+            if (!useGitignore || !Files.isRegularFile(file)) return this;
+            List<Rule> found = parse(Files.readAllLines(file));
+            return found.isEmpty() ? this : new Layer(this, dir, found, root, overrides);
+        }
+
+        boolean excluded(Path path, boolean dir, boolean parentIsModule) {
+            boolean buildOutput = dir && parentIsModule && BUILD_OUTPUT.contains(path.getFileName().toString());
+            return apply(overrides, root, path, dir, chain(path, dir, buildOutput));
+        }
+
+        // outermost first, so the nearest .gitignore has the last word
+        private boolean chain(Path path, boolean dir, boolean current) {
+            if (parent != null) current = parent.chain(path, dir, current);
+            return apply(rules, base, path, dir, current);
+        }
+    }
+
+    private static boolean apply(List<Rule> rules, Path base, Path path, boolean dir, boolean current) {
+        if (rules.isEmpty()) return current;
+        String rel = base.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+        for (Rule r : rules) {
+            if ((!r.dirOnly || dir) && r.pattern.matcher(rel).matches()) current = !r.negate;
+        }
+        return current;
+    }
+
+    private record Rule(Pattern pattern, boolean negate, boolean dirOnly) {
+    }
+
+    /** Parses gitignore lines: {@code #} comments, {@code !} negation, trailing {@code /} for directories only. */
+    private static List<Rule> parse(List<String> lines) {
+        List<Rule> rules = new ArrayList<>();
+        for (String raw : lines) {
+            String line = raw.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            boolean negate = line.startsWith("!");
+            if (negate) line = line.substring(1);
+            boolean dirOnly = line.endsWith("/");
+            if (dirOnly) line = line.substring(0, line.length() - 1);
+            // a slash anywhere but the end anchors the pattern to the .gitignore's directory
+            boolean anchored = line.contains("/");
+            if (line.startsWith("/")) line = line.substring(1);
+            if (line.isEmpty()) continue;
+            rules.add(new Rule(Pattern.compile((anchored ? "" : "(?:.*/)?") + globToRegex(line)), negate, dirOnly));
+        }
+        return rules;
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder re = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' && glob.startsWith("**/", i)) {
+                re.append("(?:.*/)?");
+                i += 2;
+            } else if (c == '*' && glob.startsWith("**", i)) {
+                re.append(".*");
+                i++;
+            } else if (c == '*') {
+                re.append("[^/]*");
+            } else if (c == '?') {
+                re.append("[^/]");
+            } else if (c == '[') {
+                int close = glob.indexOf(']', i + 1);
+                if (close < 0) {
+                    re.append("\\[");
+                } else {
+                    String set = glob.substring(i + 1, close);
+                    re.append('[').append(set.startsWith("!") ? "^" + set.substring(1) : set).append(']');
+                    i = close;
+                }
+            } else if (c == '\\' && i + 1 < glob.length()) {
+                re.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            } else {
+                re.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return re.toString();
+    }
+}
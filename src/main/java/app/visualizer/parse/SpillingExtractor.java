@@ -0,0 +1,280 @@
+package app.visualizer.parse;
+
+import app.visualizer.metrics.Metrics;
+import app.visualizer.model.UmlModel;
+import app.visualizer.render.PlantUmlRenderer;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Extraction for trees whose model does not fit in the heap. Nothing model-sized is ever held in memory:
+ * <ol>
+ *   <li>files are parsed on the extractor's workers through a bounded window of in-flight files, so parsing can
+ *       only run a few files ahead of the consumer (backpressure);</li>
+ *   <li>each parsed type is numbered in walk order and handed to an {@link ExternalSorter} keyed by simple name,
+ *       which spills sorted runs to disk once the heap budget is used;</li>
+ *   <li>a merge pass over those runs resolves same-named types exactly like {@link UmlModel#types} does (the first
+ *       occurrence fixes the position, the last one wins), writes the sorted type names to disk and queues every
+ *       field reference for a sort by referenced name;</li>
+ *   <li>associations are a merge join of those references against the sorted names, sorted back into diagram
+ *       order;</li>
+ *   <li>{@link PlantUmlRenderer} streams the types and associations straight out of the final merges.</li>
+ * </ol>
+ * The diagram is byte-for-byte the one {@link JavaExtractor#extract} plus {@link PlantUmlRenderer} would write. The
+ * list of source paths and the per-run merge buffers are the only memory that still grows with the tree.
+ */
+public class SpillingExtractor {
+    /** Totals of one extraction. */
+    public record Result(int types, long associations, int spilledRuns, long spilledBytes) {
+    }
+
+    private final JavaExtractor extractor;
+    private final long budgetBytes;
+    private Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"));
+
+    /**
+     * @param extractor   supplies the walker, parser workers, shallow mode and metrics; its cache must be off, since
+     *                    the parse cache keeps every file's types in memory
+     * @param budgetBytes estimated heap for buffered records; parser workers and the JVM come on top
+     */
+    public SpillingExtractor(JavaExtractor extractor, long budgetBytes) {
+        if (extractor.getCache() != null) {
+            throw new IllegalArgumentException("A heap budget cannot be combined with the parse cache");
+        }
+        this.extractor = extractor;
+        this.budgetBytes = budgetBytes;
+    }
+
+    /** Where spill runs go (default: {@code java.io.tmpdir}); they are deleted when the extraction ends. */
+    public void setTempDir(Path tempDir) {
+        this.tempDir = tempDir;
+    }
+
+    /** Extracts every root and streams the diagram into {@code out}. */
+    public Result extract(List<Path> srcRoots, Appendable out) throws IOException {
+        return extractor.withSources(srcRoots, files -> {
+            long quarter = budgetBytes / 4;
+            Files.createDirectories(tempDir);
+            Path names = Files.createTempFile(tempDir, "uml-names-", ".run"); // sorted survivor names
+            // every sorter is scoped to the steps that use it, so its runs are deleted as soon as it is done
+            try (ExternalSorter<Numbered> inOrder = new ExternalSorter<>(BY_SEQ, NUMBERED, quarter, tempDir, "survivors");
+                 ExternalSorter<Reference> associations = new ExternalSorter<>(BY_SOURCE, REFERENCE, quarter, tempDir, "associations")) {
+                int types;
+                long edges;
+                int runs = 0;
+                long bytes = 0;
+                try (ExternalSorter<Reference> references = new ExternalSorter<>(BY_TARGET, REFERENCE, quarter, tempDir, "references")) {
+                    // types by (name, walk order): budgeted on their own, since only they are filled while parsing
+                    try (ExternalSorter<Numbered> byName = new ExternalSorter<>(BY_NAME, NUMBERED, budgetBytes / 2, tempDir, "types")) {
+                        long start = System.nanoTime();
+                        parse(files, byName);
+                        extractor.phase("parse", start);
+                        types = mergeNames(byName, inOrder, references, names);
+                        runs += byName.spills();
+                        bytes += byName.spilledBytes();
+                    }
+                    edges = joinReferences(references, names, types, associations);
+                    runs += references.spills();
+                    bytes += references.spilledBytes();
+                }
+                render(inOrder, associations, out);
+                runs += inOrder.spills() + associations.spills();
+                bytes += inOrder.spilledBytes() + associations.spilledBytes();
+
+                Metrics metrics = extractor.getMetrics();
+                if (metrics != null) {
+                    metrics.count("types", types);
+                    metrics.count("associations", edges);
+                    metrics.count("spilledRuns", runs);
+                    metrics.count("spilledBytes", bytes);
+                }
+                return new Result(types, edges, runs, bytes);
+            } catch (UncheckedIOException e) { // from a merge iterator
+                throw e.getCause();
+            } finally {
+                Files.deleteIfExists(names);
+            }
+        });
+    }
+
+    private void parse(List<Path> files, ExternalSorter<Numbered> byName) throws IOException {
+        long[] seq = {0};
+        extractor.parseInOrder(files, types -> {
+            for (UmlModel.UmlType t : types) byName.add(new Numbered(seq[0]++, t));
+        });
+    }
+
+    // 1. one survivor per simple name, at its first position with its last value; @return the number of survivors
+    private int mergeNames(ExternalSorter<Numbered> byName, ExternalSorter<Numbered> inOrder,
+                           ExternalSorter<Reference> references, Path names) throws IOException {
+        long start = System.nanoTime();
+        extractor.report("merge", 0, 0);
+        int types = 0;
+        try (ExternalSorter.Sorted<Numbered> sorted = byName.sorted();
+             DataOutputStream nameOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(names), 1 << 16))) {
+            Numbered first = null, last = null;
+            while (true) {
+                Numbered n = sorted.hasNext() ? sorted.next() : null;
+                if (first != null && (n == null || !n.type.name.equals(first.type.name))) {
+                    Numbered survivor = new Numbered(first.seq, last.type);
+                    inOrder.add(survivor);
+                    ExternalSorter.writeString(nameOut, survivor.type.name);
+                    int ordinal = 0;
+                    for (String target : AssociationIndex.referencedNames(survivor.type)) {
+                        if (!target.equals(survivor.type.name)) {
+                            references.add(new Reference(target, survivor.seq, ordinal++, survivor.type.name));
+                        }
+                    }
+                    types++;
+                    first = null;
+                }
+                if (n == null) break;
+                if (first == null) first = n;
+                last = n;
+            }
+        }
+        extractor.phase("merge", start);
+        return types;
+    }
+
+    // 2. keep the references whose target is a declared name: both sides are sorted by name; @return edges kept
+    private long joinReferences(ExternalSorter<Reference> references, Path names, int types,
+                                ExternalSorter<Reference> associations) throws IOException {
+        long start = System.nanoTime();
+        extractor.report("associations", 0, 0);
+        long edges = 0;
+        try (ExternalSorter.Sorted<Reference> refs = references.sorted();
+             DataInputStream nameIn = new DataInputStream(new BufferedInputStream(Files.newInputStream(names), 1 << 16))) {
+            String name = types > 0 ? ExternalSorter.readString(nameIn) : null;
+            int read = types > 0 ? 1 : 0;
+            while (refs.hasNext()) {
+                Reference r = refs.next();
+                while (name != null && name.compareTo(r.target) < 0) {
+                    name = read < types ? ExternalSorter.readString(nameIn) : null;
+                    read++;
+                }
+                if (name == null) break;
+                if (name.equals(r.target)) {
+                    associations.add(r);
+                    edges++;
+                }
+            }
+        }
+        extractor.phase("associations", start);
+        return edges;
+    }
+
+    // 3. types in first-seen order, then associations by source position and field order
+    private void render(ExternalSorter<Numbered> inOrder, ExternalSorter<Reference> associations, Appendable out)
+            throws IOException {
+        long start = System.nanoTime();
+        extractor.report("render", 0, 0);
+        try (ExternalSorter.Sorted<Numbered> typesInOrder = inOrder.sorted();
+             ExternalSorter.Sorted<Reference> edgesInOrder = associations.sorted()) {
+            Iterator<UmlModel.UmlType> typeIt = new Iterator<>() {
+                public boolean hasNext() {
+                    return typesInOrder.hasNext();
+                }
+
+                public UmlModel.UmlType next() {
+                    return typesInOrder.next().type;
+                }
+            };
+            Iterator<String[]> edgeIt = new Iterator<>() {
+                public boolean hasNext() {
+                    return edgesInOrder.hasNext();
+                }
+
+                public String[] next() {
+                    Reference r = edgesInOrder.next();
+                    return new String[]{r.sourceName, r.target, ""};
+                }
+            };
+            new PlantUmlRenderer().render(typeIt, edgeIt, out);
+        }
+        extractor.phase("render", start);
+    }
+
+    /** A parsed type and its position in walk order. */
+    private record Numbered(long seq, UmlModel.UmlType type) {
+    }
+
+    /** Field reference from the type at {@code sourceSeq} to the simple name {@code target}. */
+    private record Reference(String target, long sourceSeq, int ordinal, String sourceName) {
+    }
+
+    private static final Comparator<Numbered> BY_NAME =
+            Comparator.comparing((Numbered n) -> n.type.name).thenComparingLong(Numbered::seq);
+    private static final Comparator<Numbered> BY_SEQ = Comparator.comparingLong(Numbered::seq);
+    private static final Comparator<Reference> BY_TARGET =
+            Comparator.comparing(Reference::target).thenComparingLong(Reference::sourceSeq).thenComparingInt(Reference::ordinal);
+    private static final Comparator<Reference> BY_SOURCE =
+            Comparator.comparingLong(Reference::sourceSeq).thenComparingInt(Reference::ordinal);
+
+    private static final UmlModel.UmlType.Kind[] KINDS = UmlModel.UmlType.Kind.values();
+
+    private static final ExternalSorter.Codec<Numbered> NUMBERED = new ExternalSorter.Codec<>() {
+        @Override
+        public void write(DataOutputStream out, Numbered n) throws IOException {
+            UmlModel.UmlType t = n.type;
+            out.writeLong(n.seq);
+            ExternalSorter.writeString(out, t.name);
+            ExternalSorter.writeString(out, t.packageName);
+            ExternalSorter.writeString(out, t.qualifiedName);
+            out.writeByte(t.kind == null ? -1 : t.kind.ordinal());
+            ExternalSorter.writeStrings(out, t.fields);
+            ExternalSorter.writeStrings(out, t.methods);
+            ExternalSorter.writeStrings(out, t.extendsTypes);
+            ExternalSorter.writeStrings(out, t.implementsTypes);
+        }
+
+        @Override
+        public Numbered read(DataInputStream in) throws IOException {
+            long seq = in.readLong();
+            UmlModel.UmlType t = new UmlModel.UmlType();
+            t.name = ExternalSorter.readString(in);
+            t.packageName = ExternalSorter.readString(in);
+            t.qualifiedName = ExternalSorter.readString(in);
+            byte kind = in.readByte();
+            t.kind = kind < 0 ? null : KINDS[kind];
+            t.fields = ExternalSorter.readStrings(in);
+            t.methods = ExternalSorter.readStrings(in);
+            t.extendsTypes = ExternalSorter.readStrings(in);
+            t.implementsTypes = ExternalSorter.readStrings(in);
+            return new Numbered(seq, t);
+        }
+
+        @Override
+        public long heapBytes(Numbered n) {
+            UmlModel.UmlType t = n.type;
+            return 120 + ExternalSorter.heapBytes(t.name) + ExternalSorter.heapBytes(t.packageName)
+                    + ExternalSorter.heapBytes(t.qualifiedName) + ExternalSorter.heapBytes(t.fields)
+                    + ExternalSorter.heapBytes(t.methods) + ExternalSorter.heapBytes(t.extendsTypes)
+                    + ExternalSorter.heapBytes(t.implementsTypes);
+        }
+    };
+
+    private static final ExternalSorter.Codec<Reference> REFERENCE = new ExternalSorter.Codec<>() {
+        @Override
+        public void write(DataOutputStream out, Reference r) throws IOException {
+            ExternalSorter.writeString(out, r.target);
+            out.writeLong(r.sourceSeq);
+            out.writeInt(r.ordinal);
+            ExternalSorter.writeString(out, r.sourceName);
+        }
+
+        @Override
+        public Reference read(DataInputStream in) throws IOException {
+            return new Reference(ExternalSorter.readString(in), in.readLong(), in.readInt(), ExternalSorter.readString(in));
+        }
+
+        @Override
+        public long heapBytes(Reference r) {
+            return 40 + ExternalSorter.heapBytes(r.target) + ExternalSorter.heapBytes(r.sourceName);
+        }
+    };
+}
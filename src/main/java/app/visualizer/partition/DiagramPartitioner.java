@@ -0,0 +1,220 @@
+package app.visualizer.partition;
+
+import app.visualizer.model.UmlModel;
+
+import java.util.*;
+
+/**
+ * Splits a {@link UmlModel} into diagrams small enough for PlantUML to lay out:
+ * <ul>
+ *   <li>{@code PACKAGE} - one partition per package;</li>
+ *   <li>{@code COMPONENT} - connected components of the type graph, small ones packed together;</li>
+ *   <li>{@code SIZE} - breadth-first chunks of at most {@code maxNodes} types, keeping neighbours together.</li>
+ * </ul>
+ * A positive {@code maxNodes} also caps PACKAGE and COMPONENT partitions. Edges that cross partitions are kept in
+ * both partitions, with the far end replaced by a stub.
+ */
+public class DiagramPartitioner {
+    public enum Strategy { PACKAGE, COMPONENT, SIZE }
+
+    private final Strategy strategy;
+    private final int maxNodes;
+
+    public DiagramPartitioner(Strategy strategy, int maxNodes) {
+        if (strategy == Strategy.SIZE && maxNodes <= 0) {
+            throw new IllegalArgumentException("SIZE partitioning needs a positive node budget");
+        }
+        this.strategy = strategy;
+        this.maxNodes = maxNodes;
+    }
+
+    public List<Partition> partition(UmlModel model) {
+        List<UmlModel.UmlType> types = new ArrayList<>(model.types.values());
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < types.size(); i++) ids.put(types.get(i).name, i);
+
+        List<List<Integer>> groups;
+        List<String> labels = new ArrayList<>();
+        switch (strategy) {
+            case PACKAGE -> groups = byPackage(types, labels);
+            case COMPONENT -> groups = byComponent(types, neighbours(model, types, ids), labels);
+            default -> groups = bySize(types, neighbours(model, types, ids), labels);
+        }
+
+        int[] partOf = new int[types.size()];
+        for (int p = 0; p < groups.size(); p++) {
+            for (int t : groups.get(p)) partOf[t] = p;
+        }
+        return build(model, types, ids, groups, labels, partOf);
+    }
+
+    private List<List<Integer>> byPackage(List<UmlModel.UmlType> types, List<String> labels) {
+        Map<String, List<Integer>> byPkg = new LinkedHashMap<>();
+        for (int i = 0; i < types.size(); i++) {
+            String pkg = types.get(i).packageName == null || types.get(i).packageName.isEmpty()
+                    ? "(default package)" : types.get(i).packageName;
+            byPkg.computeIfAbsent(pkg, k -> new ArrayList<>()).add(i);
+        }
+        List<List<Integer>> groups = new ArrayList<>();
+        byPkg.forEach((pkg, members) -> {
+            List<List<Integer>> chunks = chunk(members);
+            for (int c = 0; c < chunks.size(); c++) {
+                groups.add(chunks.get(c));
+                labels.add(chunks.size() == 1 ? pkg : pkg + " (" + (c + 1) + "/" + chunks.size() + ")");
+            }
+        });
+        return groups;
+    }
+
+    private List<List<Integer>> byComponent(List<UmlModel.UmlType> types, List<List<Integer>> adj, List<String> labels) {
+        List<List<Integer>> groups = new ArrayList<>();
+        List<Integer> bin = new ArrayList<>();
+        for (List<Integer> component : components(types.size(), adj)) {
+            if (maxNodes > 0 && component.size() > maxNodes) {
+                groups.addAll(chunk(component)); // too big to keep whole
+            } else if (maxNodes > 0 && bin.size() + component.size() <= maxNodes) {
+                bin.addAll(component);
+            } else {
+                if (!bin.isEmpty()) groups.add(bin);
+                bin = new ArrayList<>(component);
+                if (maxNodes <= 0) {
+                    groups.add(bin);
+                    bin = new ArrayList<>();
+                }
+            }
+        }
+        if (!bin.isEmpty()) groups.add(bin);
+        for (List<Integer> g : groups) labels.add(types.get(g.get(0)).name + (g.size() > 1 ? " + " + (g.size() - 1) + " more" : ""));
+        return groups;
+    }
+
+    private List<List<Integer>> bySize(List<UmlModel.UmlType> types, List<List<Integer>> adj, List<String> labels) {
+        List<Integer> order = new ArrayList<>(types.size());
+        components(types.size(), adj).forEach(order::addAll);
+        List<List<Integer>> groups = chunk(order);
+        for (List<Integer> g : groups) labels.add(types.get(g.get(0)).name + " + " + (g.size() - 1) + " more");
+        return groups;
+    }
+
+    /** Connected components in BFS order, so consecutive ids are graph neighbours. */
+    private static List<List<Integer>> components(int n, List<List<Integer>> adj) {
+        boolean[] seen = new boolean[n];
+        List<List<Integer>> result = new ArrayList<>();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int start = 0; start < n; start++) {
+            if (seen[start]) continue;
+            List<Integer> component = new ArrayList<>();
+            seen[start] = true;
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                int t = queue.poll();
+                component.add(t);
+                for (int u : adj.get(t)) {
+                    if (!seen[u]) {
+                        seen[u] = true;
+                        queue.add(u);
+                    }
+                }
+            }
+            result.add(component);
+        }
+        return result;
+    }
+
+    private List<List<Integer>> chunk(List<Integer> members) {
+        if (maxNodes <= 0 || members.size() <= maxNodes) return List.of(members);
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int i = 0; i < members.size(); i += maxNodes) {
+            chunks.add(new ArrayList<>(members.subList(i, Math.min(members.size(), i + maxNodes))));
+        }
+        return chunks;
+    }
+
+    private static List<List<Integer>> neighbours(UmlModel model, List<UmlModel.UmlType> types, Map<String, Integer> ids) {
+        List<List<Integer>> adj = new ArrayList<>(types.size());
+        for (int i = 0; i < types.size(); i++) adj.add(new ArrayList<>());
+        for (int i = 0; i < types.size(); i++) {
+            UmlModel.UmlType t = types.get(i);
+            for (String x : t.extendsTypes) link(adj, i, ids.get(x));
+            for (String x : t.implementsTypes) link(adj, i, ids.get(x));
+        }
+        for (String[] a : model.associations) {
+            Integer from = ids.get(a[0]);
+            if (from != null) link(adj, from, ids.get(a[1]));
+        }
+        return adj;
+    }
+
+    private static void link(List<List<Integer>> adj, int a, Integer b) {
+        if (b == null || b == a) return;
+        adj.get(a).add(b);
+        adj.get(b).add(a);
+    }
+
+    private static List<Partition> build(UmlModel model, List<UmlModel.UmlType> types, Map<String, Integer> ids,
+                                         List<List<Integer>> groups, List<String> labels, int[] partOf) {
+        int count = groups.size();
+        List<UmlModel> models = new ArrayList<>(count);
+        List<Map<String, UmlModel.UmlType>> stubTypes = new ArrayList<>(count);
+        List<Map<String, Integer>> stubs = new ArrayList<>(count);
+        for (List<Integer> g : groups) {
+            UmlModel m = new UmlModel();
+            for (int t : g) m.types.put(types.get(t).name, types.get(t));
+            models.add(m);
+            stubTypes.add(new LinkedHashMap<>());
+            stubs.add(new LinkedHashMap<>());
+        }
+
+        for (int t = 0; t < types.size(); t++) {
+            UmlModel.UmlType type = types.get(t);
+            int p = partOf[t];
+            for (String x : type.extendsTypes) crossInheritance(type, x, p, ids, partOf, types, stubTypes, stubs, true);
+            for (String x : type.implementsTypes) crossInheritance(type, x, p, ids, partOf, types, stubTypes, stubs, false);
+        }
+        for (String[] a : model.associations) {
+            Integer from = ids.get(a[0]);
+            Integer to = ids.get(a[1]);
+            if (from == null || to == null) continue;
+            int pf = partOf[from], pt = partOf[to];
+            models.get(pf).associations.add(a);
+            if (pf != pt) {
+                stub(types.get(to), pt, pf, stubTypes, stubs);
+                stub(types.get(from), pf, pt, stubTypes, stubs);
+                models.get(pt).associations.add(a);
+            }
+        }
+
+        List<Partition> result = new ArrayList<>(count);
+        for (int p = 0; p < count; p++) {
+            UmlModel m = models.get(p);
+            stubTypes.get(p).values().forEach(s -> m.types.put(s.name, s));
+            result.add(new Partition(p, labels.get(p), m, stubs.get(p), groups.get(p).size()));
+        }
+        return result;
+    }
+
+    // A supertype in another partition becomes a stub here; this subtype becomes a stub (carrying the edge) there
+    private static void crossInheritance(UmlModel.UmlType type, String superName, int p, Map<String, Integer> ids,
+                                         int[] partOf, List<UmlModel.UmlType> types,
+                                         List<Map<String, UmlModel.UmlType>> stubTypes,
+                                         List<Map<String, Integer>> stubs, boolean isExtends) {
+        Integer s = ids.get(superName);
+        if (s == null || partOf[s] == p) return;
+        stub(types.get(s), partOf[s], p, stubTypes, stubs);
+        UmlModel.UmlType sub = stub(type, p, partOf[s], stubTypes, stubs);
+        (isExtends ? sub.extendsTypes : sub.implementsTypes).add(superName);
+    }
+
+    private static UmlModel.UmlType stub(UmlModel.UmlType original, int home, int in,
+                                         List<Map<String, UmlModel.UmlType>> stubTypes, List<Map<String, Integer>> stubs) {
+        stubs.get(in).put(original.name, home);
+        return stubTypes.get(in).computeIfAbsent(original.name, n -> {
+            UmlModel.UmlType s = new UmlModel.UmlType();
+            s.name = original.name;
+            s.packageName = original.packageName;
+            s.qualifiedName = original.qualifiedName;
+            s.kind = original.kind;
+            return s;
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package app.visualizer.partition;
+
+import app.visualizer.model.UmlModel;
+
+import java.util.Map;
+
+/**
+ * One slice of a partitioned diagram. {@link #model} holds the member types plus <em>stub</em> types standing in for
+ * the far end of every cross-partition edge; {@link #stubs} maps each stub name to the partition that declares it.
+ */
+public class Partition {
+    public final int index;
+    public final String label;
+    public final UmlModel model;
+    public final Map<String, Integer> stubs;
+    public final int memberCount;
+
+    Partition(int index, String label, UmlModel model, Map<String, Integer> stubs, int memberCount) {
+        this.index = index;
+        this.label = label;
+        this.model = model;
+        this.stubs = stubs;
+        this.memberCount = memberCount;
+    }
+
+    /** File name stem, e.g. {@code part-007}. */
+    public String fileStem() {
+        return String.format("part-%03d", index + 1);
+    }
+}
@@ -0,0 +1,111 @@
+package app.visualizer.partition;
+
+import app.visualizer.render.ImageRenderer;
+import app.visualizer.render.PlantUmlRenderer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Writes every partition to its own {@code .puml} (plus PNG/SVG when requested) on a bounded pool, then an
+ * {@code index.html} linking them. A partition that fails to render is reported in the index; the others still finish.
+ */
+public class PartitionExporter {
+    private final int threads;
+    private final Set<ImageRenderer.Format> formats;
+
+    public PartitionExporter(int threads, Set<ImageRenderer.Format> formats) {
+        this.threads = Math.max(1, threads);
+        this.formats = formats.isEmpty() ? Set.of() : EnumSet.copyOf(formats);
+    }
+
+    /** @return the index file */
+    public Path export(List<Partition> partitions, Path outDir) throws IOException {
+        Files.createDirectories(outDir);
+        // stubs link to the partition that declares the type; only SVG keeps links clickable
+        String linkExtension = formats.contains(ImageRenderer.Format.SVG) ? ".svg" : ".puml";
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, partitions.size())), r -> {
+            Thread t = new Thread(r, "uml-partition-render");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (Partition p : partitions) {
+                futures.add(pool.submit(() -> {
+                    exportOne(p, partitions, outDir, linkExtension);
+                    return null;
+                }));
+            }
+            String[] errors = new String[partitions.size()];
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    errors[i] = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+                    System.err.println("Failed to export " + partitions.get(i).fileStem() + ": " + errors[i]);
+                }
+            }
+            return writeIndex(partitions, errors, outDir);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void exportOne(Partition p, List<Partition> all, Path outDir, String linkExtension) throws IOException {
+        Map<String, String> stubLinks = new HashMap<>();
+        p.stubs.forEach((name, home) -> stubLinks.put(name, all.get(home).fileStem() + linkExtension));
+
+        StringBuilder text = new StringBuilder();
+        new PlantUmlRenderer().render(p.model, stubLinks, text);
+        String puml = text.toString();
+        try (Writer w = Files.newBufferedWriter(outDir.resolve(p.fileStem() + ".puml"), StandardCharsets.UTF_8)) {
+            w.write(puml);
+        }
+        if (formats.isEmpty()) return;
+
+        ImageRenderer images = new ImageRenderer();
+        String layout = ImageRenderer.withElkLayout(puml);
+        for (ImageRenderer.Format f : formats) {
+            try (OutputStream os = Files.newOutputStream(outDir.resolve(p.fileStem() + "." + f.extension))) {
+                images.render(layout, f, os);
+            }
+        }
+    }
+
+    private Path writeIndex(List<Partition> partitions, String[] errors, Path outDir) throws IOException {
+        Path index = outDir.resolve("index.html");
+        try (Writer w = Files.newBufferedWriter(index, StandardCharsets.UTF_8)) {
+            w.write("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>UML partitions</title></head><body>\n");
+            w.write("<h1>UML partitions (" + partitions.size() + ")</h1>\n<table>\n");
+            w.write("<tr><th>#</th><th>Partition</th><th>Types</th><th>Stubs</th><th>Files</th></tr>\n");
+            for (Partition p : partitions) {
+                w.write("<tr><td>" + (p.index + 1) + "</td><td>" + escape(p.label) + "</td><td>" + p.memberCount
+                        + "</td><td>" + p.stubs.size() + "</td><td>");
+                w.write("<a href=\"" + p.fileStem() + ".puml\">puml</a>");
+                for (ImageRenderer.Format f : formats) {
+                    w.write(" <a href=\"" + p.fileStem() + "." + f.extension + "\">" + f.extension + "</a>");
+                }
+                if (errors[p.index] != null) w.write(" <em>failed: " + escape(errors[p.index]) + "</em>");
+                w.write("</td></tr>\n");
+            }
+            w.write("</table>\n</body></html>\n");
+        }
+        return index;
+    }
+
+    private static String escape(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,220 @@
+package app.visualizer.query;
+
+import app.visualizer.model.CompactModel;
+import app.visualizer.model.CompactModel.EdgeKind;
+import app.visualizer.model.UmlModel;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Cuts the neighbourhood of one or more seed types out of a model: a breadth-first search over the
+ * {@link CompactModel} CSR edges, in both directions, up to {@code maxHops} hops, following only the chosen edge kinds
+ * and only through packages that pass the include/exclude globs. The result is a small {@link UmlModel} for
+ * {@link app.visualizer.render.PlantUmlRenderer}, so layout time depends on the answer rather than the codebase.
+ * <p>
+ * Package globs use {@code *} for one package segment and {@code **} for any number, e.g. {@code java.util.**}; a
+ * trailing {@code .*} or {@code .**} also matches the package it hangs off, so {@code java.util.**} covers
+ * {@code java.util} itself. Seeds are always kept, even when the globs would exclude them.
+ * <p>
+ * An instance remembers the compact form of the last {@link UmlModel} it ran on (until the model's
+ * {@link UmlModel#modCount} moves), so running it again on the same model skips the conversion.
+ */
+public class NeighborhoodQuery {
+    private final List<String> seeds;
+    private final int maxHops;
+    private Set<EdgeKind> edgeKinds = EnumSet.allOf(EdgeKind.class);
+    private List<Pattern> includes = List.of();
+    private List<Pattern> excludes = List.of();
+    private UmlModel compactSource;
+    private int compactModCount;
+    private CompactModel compact;
+
+    /**
+     * @param seeds   qualified or simple type names; a simple name selects every type with that name
+     * @param maxHops how many edges away from a seed to go; 0 renders only the seeds
+     */
+    public NeighborhoodQuery(List<String> seeds, int maxHops) {
+        if (seeds.isEmpty()) throw new IllegalArgumentException("A neighbourhood query needs at least one seed type");
+        this.seeds = List.copyOf(seeds);
+        this.maxHops = Math.max(0, maxHops);
+    }
+
+    public void setEdgeKinds(Set<EdgeKind> edgeKinds) {
+        this.edgeKinds = edgeKinds.isEmpty() ? EnumSet.allOf(EdgeKind.class) : EnumSet.copyOf(edgeKinds);
+    }
+
+    public void setIncludes(List<String> packageGlobs) {
+        this.includes = packageGlobs.stream().map(NeighborhoodQuery::glob).toList();
+    }
+
+    public void setExcludes(List<String> packageGlobs) {
+        this.excludes = packageGlobs.stream().map(NeighborhoodQuery::glob).toList();
+    }
+
+    public UmlModel run(UmlModel model) {
+        CompactModel compactModel;
+        synchronized (this) {
+            if (compactSource != model || compactModCount != model.modCount) {
+                compact = CompactModel.of(model);
+                compactSource = model;
+                compactModCount = model.modCount;
+            }
+            compactModel = compact;
+        }
+        return run(compactModel);
+    }
+
+    public UmlModel run(CompactModel model) {
+        BitSet selected = select(model);
+
+        // copy the selected types, keeping only edges whose both ends were selected
+        UmlModel result = new UmlModel();
+        for (int t = selected.nextSetBit(0); t >= 0; t = selected.nextSetBit(t + 1)) {
+            UmlModel.UmlType u = new UmlModel.UmlType();
+            u.name = model.displayName(t);
+            u.packageName = model.packageName(t);
+            u.qualifiedName = model.qualifiedName(t);
+            u.kind = model.kind(t);
+            for (int i = 0; i < model.fieldCount(t); i++) u.fields.add(model.field(t, i));
+            for (int i = 0; i < model.methodCount(t); i++) u.methods.add(model.method(t, i));
+            addTargets(model, selected, EdgeKind.EXTENDS, t, u.extendsTypes);
+            addTargets(model, selected, EdgeKind.IMPLEMENTS, t, u.implementsTypes);
+            result.types.put(u.name, u);
+        }
+        if (edgeKinds.contains(EdgeKind.ASSOCIATION)) {
+            for (int t = selected.nextSetBit(0); t >= 0; t = selected.nextSetBit(t + 1)) {
+                for (int i = 0; i < model.edgeCount(EdgeKind.ASSOCIATION, t); i++) {
+                    int to = model.edgeTarget(EdgeKind.ASSOCIATION, t, i);
+                    if (selected.get(to)) result.associations.add(new String[]{model.displayName(t), model.displayName(to), ""});
+                }
+            }
+        }
+        return result;
+    }
+
+    private BitSet select(CompactModel model) {
+        BitSet selected = new BitSet(model.typeCount());
+        int[] frontier = seedIds(model);
+        for (int t : frontier) selected.set(t);
+
+        Map<EdgeKind, int[][]> reverse = new EnumMap<>(EdgeKind.class);
+        for (EdgeKind kind : edgeKinds) reverse.put(kind, model.reverseEdges(kind));
+        for (int hop = 0; hop < maxHops && frontier.length > 0; hop++) {
+            int[] next = new int[16];
+            int size = 0;
+            for (int t : frontier) {
+                for (EdgeKind kind : edgeKinds) {
+                    for (int i = 0; i < model.edgeCount(kind, t); i++) {
+                        int n = model.edgeTarget(kind, t, i);
+                        if (visit(model, selected, n)) {
+                            if (size == next.length) next = Arrays.copyOf(next, size * 2);
+                            next[size++] = n;
+                        }
+                    }
+                    int[][] in = reverse.get(kind);
+                    for (int e = in[0][t]; e < in[0][t + 1]; e++) {
+                        int n = in[1][e];
+                        if (visit(model, selected, n)) {
+                            if (size == next.length) next = Arrays.copyOf(next, size * 2);
+                            next[size++] = n;
+                        }
+                    }
+                }
+            }
+            frontier = Arrays.copyOf(next, size);
+        }
+        return selected;
+    }
+
+    // marks n selected if it is a new, declared type inside the package filter
+    private boolean visit(CompactModel model, BitSet selected, int n) {
+        if (selected.get(n) || model.isExternal(n) || !packageAllowed(model.packageName(n))) return false;
+        selected.set(n);
+        return true;
+    }
+
+    private boolean packageAllowed(String pkg) {
+        for (Pattern p : excludes) {
+            if (p.matcher(pkg).matches()) return false;
+        }
+        if (includes.isEmpty()) return true;
+        for (Pattern p : includes) {
+            if (p.matcher(pkg).matches()) return true;
+        }
+        return false;
+    }
+
+    private int[] seedIds(CompactModel model) {
+        Set<String> bySimpleName = new HashSet<>();
+        List<Integer> ids = new ArrayList<>();
+        for (String seed : seeds) {
+            int t = model.findType(seed);
+            if (t >= 0 && !model.isExternal(t)) ids.add(t);
+            else bySimpleName.add(seed);
+        }
+        if (!bySimpleName.isEmpty()) {
+            Set<String> found = new HashSet<>();
+            for (int t = 0; t < model.typeCount(); t++) {
+                if (!model.isExternal(t) && bySimpleName.contains(model.name(t))) {
+                    ids.add(t);
+                    found.add(model.name(t));
+                }
+            }
+            bySimpleName.removeAll(found);
+            if (!bySimpleName.isEmpty()) {
+                throw new IllegalArgumentException("Unknown seed type(s): " + String.join(", ", bySimpleName));
+            }
+        }
+        return ids.stream().mapToInt(Integer::intValue).distinct().toArray();
+    }
+
+    private void addTargets(CompactModel model, BitSet selected, EdgeKind kind, int t, List<String> out) {
+        if (!edgeKinds.contains(kind)) return;
+        for (int i = 0; i < model.edgeCount(kind, t); i++) {
+            int to = model.edgeTarget(kind, t, i);
+            if (selected.get(to)) out.add(model.displayName(to));
+        }
+    }
+
+    /**
+     * {@code java.util.*} matches {@code java.util} and its direct subpackages, {@code java.**} java and anything
+     * under it.
+     */
+    static Pattern glob(String glob) {
+        String tail = glob.endsWith(".**") ? "(\\..*)?" : glob.endsWith(".*") ? "(\\.[^.]*)?" : "";
+        if (!tail.isEmpty()) glob = glob.substring(0, glob.lastIndexOf('.'));
+        StringBuilder re = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                re.append(".*");
+                i++;
+            } else if (c == '*') {
+                re.append("[^.]*");
+            } else if (c == '?') {
+                re.append("[^.]");
+            } else {
+                re.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(re.append(tail).toString());
+    }
+
+    /** Splits a comma-separated option value, dropping blanks. */
+    public static List<String> list(String value) {
+        List<String> items = new ArrayList<>();
+        if (value == null) return items;
+        for (String s : value.split(",")) {
+            if (!s.isBlank()) items.add(s.trim());
+        }
+        return items;
+    }
+
+    /** Parses {@code extends,implements,association}; empty means all kinds. */
+    public static Set<EdgeKind> edgeKinds(String value) {
+        Set<EdgeKind> kinds = EnumSet.noneOf(EdgeKind.class);
+        for (String s : list(value)) kinds.add(EdgeKind.valueOf(s.toUpperCase(Locale.ROOT)));
+        return kinds;
+    }
+}
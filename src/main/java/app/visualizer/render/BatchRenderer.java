@@ -0,0 +1,217 @@
+package app.visualizer.render;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Headless image export for many {@code .puml} files on a bounded pool. Every diagram gets a time budget and an
+ * allocation budget per layout attempt; an attempt that exceeds either (or runs out of heap) is abandoned and the
+ * diagram is retried at the next {@link Level}, so one pathological diagram cannot stall the whole batch.
+ * <p>
+ * PlantUML layout does not respond to interruption, so an abandoned attempt keeps running on its own daemon thread
+ * until it finishes; its result is discarded. Abandoned attempts still running are capped at enough for every render
+ * thread to give up on every level of one diagram; past that, diagrams fail at once instead of starting more layouts
+ * the JVM has no cores left for.
+ */
+public class BatchRenderer {
+    /** How much of each type is drawn; every level is cheaper to lay out than the one before. */
+    public enum Level {
+        FULL, NO_MEMBERS, TYPES_ONLY;
+
+        /** The text to lay out at this level. */
+        public String apply(String pumlText) {
+            if (this == FULL) return pumlText;
+            StringBuilder sb = new StringBuilder(pumlText.length());
+            for (String line : pumlText.split("\n", -1)) {
+                // members are the indented lines inside declarations; dropping them also skips parsing them
+                if (line.startsWith("  ")) continue;
+                if (this == TYPES_ONLY && line.contains(" --> ")) continue; // keep only the inheritance skeleton
+                sb.append(line).append('\n');
+                if (line.equals("@startuml")) {
+                    sb.append("hide members\n");
+                    if (this == TYPES_ONLY) sb.append("hide circle\nhide stereotype\n");
+                }
+            }
+            sb.setLength(sb.length() - 1);
+            return sb.toString();
+        }
+    }
+
+    /** Outcome of one input; {@code level} is null and {@code error} set when every level failed. */
+    public record Result(Path input, Level level, long millis, List<Path> outputs, String error) {
+        public boolean failed() {
+            return error != null;
+        }
+    }
+
+    private final int threads;
+    private final Set<ImageRenderer.Format> formats;
+    private final long budgetMillis;
+    private final long budgetBytes;
+    private final ImageRenderer images = new ImageRenderer();
+    private final Set<Thread> abandoned = ConcurrentHashMap.newKeySet();
+    private final int maxAbandoned;
+
+    /**
+     * @param budgetMillis wall time per layout attempt; 0 for none
+     * @param budgetBytes  bytes a layout attempt may allocate; 0 for none
+     */
+    public BatchRenderer(int threads, Set<ImageRenderer.Format> formats, long budgetMillis, long budgetBytes) {
+        this.threads = Math.max(1, threads);
+        this.formats = formats.isEmpty() ? EnumSet.of(ImageRenderer.Format.PNG) : EnumSet.copyOf(formats);
+        this.budgetMillis = budgetMillis;
+        this.budgetBytes = budgetBytes;
+        this.maxAbandoned = this.threads * Level.values().length;
+    }
+
+    /** Expands directories to the {@code .puml} files inside them, sorted. */
+    public static List<Path> inputs(List<Path> paths) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path p : paths) {
+            if (!Files.isDirectory(p)) {
+                files.add(p);
+                continue;
+            }
+            try (Stream<Path> walk = Files.walk(p)) {
+                walk.filter(f -> f.toString().endsWith(".puml")).sorted().forEach(files::add);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Renders every input into {@code outDir} (or next to the input when {@code null}); results are in input order.
+     * Failures are reported in the results, never thrown.
+     */
+    public List<Result> render(List<Path> inputs, Path outDir) throws IOException {
+        if (outDir != null) Files.createDirectories(outDir);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, inputs.size())), r -> {
+            Thread t = new Thread(r, "uml-batch-render");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Path in : inputs) futures.add(pool.submit(() -> renderOne(in, outDir)));
+            List<Result> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new Result(inputs.get(i), null, 0, List.of(), String.valueOf(e.getCause())));
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch render interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Result renderOne(Path input, Path outDir) throws Exception {
+        long start = System.nanoTime();
+        String text = ImageRenderer.withElkLayout(Files.readString(input, StandardCharsets.UTF_8));
+        String stem = input.getFileName().toString().replaceFirst("\\.puml$", "");
+        Path dir = outDir != null ? outDir : input.toAbsolutePath().getParent();
+
+        StringJoiner problems = new StringJoiner("; ");
+        for (Level level : Level.values()) {
+            abandoned.removeIf(t -> !t.isAlive());
+            if (abandoned.size() >= maxAbandoned) {
+                problems.add(level + ": not tried, " + abandoned.size() + " abandoned layouts still running");
+                break;
+            }
+            String attemptText = level.apply(text);
+            Map<ImageRenderer.Format, byte[]> images;
+            try {
+                images = attempt(attemptText);
+            } catch (BudgetExceeded e) {
+                problems.add(level + ": " + e.getMessage());
+                continue;
+            }
+            List<Path> outputs = new ArrayList<>();
+            for (Map.Entry<ImageRenderer.Format, byte[]> e : images.entrySet()) {
+                Path out = dir.resolve(stem + "." + e.getKey().extension);
+                Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+                Files.write(tmp, e.getValue());
+                Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                outputs.add(out);
+            }
+            return new Result(input, level, (System.nanoTime() - start) / 1_000_000, outputs, null);
+        }
+        return new Result(input, null, (System.nanoTime() - start) / 1_000_000, List.of(), problems.toString());
+    }
+
+    /** Lays out every format on a fresh thread, watching its wall time and allocations. */
+    private Map<ImageRenderer.Format, byte[]> attempt(String pumlText) throws BudgetExceeded, InterruptedException {
+        CompletableFuture<Map<ImageRenderer.Format, byte[]>> result = new CompletableFuture<>();
+        Thread layout = new Thread(() -> {
+            try {
+                Map<ImageRenderer.Format, byte[]> out = new EnumMap<>(ImageRenderer.Format.class);
+                for (ImageRenderer.Format f : formats) out.put(f, images.render(pumlText, f));
+                result.complete(out);
+            } catch (OutOfMemoryError e) {
+                result.completeExceptionally(new BudgetExceeded("out of heap"));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, "uml-batch-layout");
+        layout.setDaemon(true);
+        long start = System.nanoTime();
+        long allocatedAtStart = -1;
+        layout.start();
+        while (true) {
+            if (allocatedAtStart < 0) allocatedAtStart = allocated(layout);
+            try {
+                return result.get(100, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                long elapsed = (System.nanoTime() - start) / 1_000_000;
+                if (budgetMillis > 0 && elapsed > budgetMillis) {
+                    abandon(layout);
+                    throw new BudgetExceeded("over " + budgetMillis + " ms");
+                }
+                long bytes = allocated(layout) - allocatedAtStart;
+                if (budgetBytes > 0 && allocatedAtStart >= 0 && bytes > budgetBytes) {
+                    abandon(layout);
+                    throw new BudgetExceeded("allocated over " + (budgetBytes >> 20) + " MB");
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof BudgetExceeded b) throw b;
+                throw new BudgetExceeded(e.getCause().getClass().getSimpleName() + ": " + e.getCause().getMessage());
+            }
+        }
+    }
+
+    private void abandon(Thread layout) {
+        layout.interrupt();
+        if (layout.isAlive()) abandoned.add(layout);
+    }
+
+    // bytes allocated so far by t, or -1 when the JVM cannot tell
+    @SuppressWarnings("deprecation")
+    private static long allocated(Thread t) {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean mx
+                && mx.isThreadAllocatedMemorySupported() && mx.isThreadAllocatedMemoryEnabled()) {
+            return mx.getThreadAllocatedBytes(t.getId());
+        }
+        return -1;
+    }
+
+    /** A layout attempt that was abandoned; the next {@link Level} is tried. */
+    private static final class BudgetExceeded extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceeded(String message) {
+            super(message);
+        }
+    }
+}
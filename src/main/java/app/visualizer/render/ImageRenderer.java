@@ -0,0 +1,41 @@
+package app.visualizer.render;
+
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.FileFormatOption;
+import net.sourceforge.plantuml.SourceStringReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/** Lays out PlantUML text and writes it as an image. Kept apart from {@link PlantUmlRenderer} so text-only runs never load PlantUML. */
+public class ImageRenderer {
+    public enum Format {
+        PNG("png"), SVG("svg");
+
+        public final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        FileFormat plantUmlFormat() {
+            return this == SVG ? FileFormat.SVG : FileFormat.PNG;
+        }
+    }
+
+    /** ELK layout avoids the Graphviz dependency. */
+    public static String withElkLayout(String pumlText) {
+        return pumlText.contains("!pragma layout") ? pumlText : pumlText.replace("@startuml", "@startuml\n!pragma layout elk");
+    }
+
+    public void render(String pumlText, Format format, OutputStream out) throws IOException {
+        new SourceStringReader(pumlText).outputImage(out, new FileFormatOption(format.plantUmlFormat()));
+    }
+
+    public byte[] render(String pumlText, Format format) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        render(pumlText, format, os);
+        return os.toByteArray();
+    }
+}
@@ -1,28 +1,149 @@
 package app.visualizer.render;
 
+import app.visualizer.model.CompactModel;
 import app.visualizer.model.UmlModel;
 
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
 //Created by: Joaquin Castillo
 public class PlantUmlRenderer {
+    private static final int BUFFER_SIZE = 1 << 16;
+
     public String toPlantUml(UmlModel model) {
         StringBuilder sb = new StringBuilder();
-        sb.append("@startuml\n");
-        sb.append("skinparam classAttributeIconSize 0\n");
-        model.types.values().forEach(t -> {
-            switch (t.kind) {
-                case INTERFACE -> sb.append("interface ").append(t.name).append(" {\n");
-                case ENUM      -> sb.append("enum ").append(t.name).append(" {\n");
-                case RECORD    -> sb.append("class ").append(t.name).append(" <<record>> {\n");
-                default        -> sb.append("class ").append(t.name).append(" {\n");
+        try {
+            render(model, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+        return sb.toString();
+    }
+
+    /** Streams the diagram to {@code out} one line at a time; nothing is buffered here besides the output itself. */
+    public void render(UmlModel model, Appendable out) throws IOException {
+        render(model, Map.of(), out);
+    }
+
+    /**
+     * Like {@link #render(UmlModel, Appendable)}, but types named in {@code stubs} are drawn as member-less
+     * {@code <<stub>>} placeholders, hyperlinked to their value when it is non-null (e.g. another partition's SVG).
+     */
+    public void render(UmlModel model, Map<String, String> stubs, Appendable out) throws IOException {
+        out.append("@startuml\n");
+        out.append("skinparam classAttributeIconSize 0\n");
+        for (UmlModel.UmlType t : model.types.values()) {
+            if (stubs.containsKey(t.name)) {
+                String link = stubs.get(t.name);
+                out.append(t.kind == UmlModel.UmlType.Kind.INTERFACE ? "interface " : t.kind == UmlModel.UmlType.Kind.ENUM ? "enum " : "class ")
+                        .append(t.name).append(" <<stub>>");
+                if (link != null) out.append(" [[").append(link).append("]]");
+                out.append(" {\n}\n");
+                for (String x : t.extendsTypes) out.append(x).append(" <|-- ").append(t.name).append("\n");
+                for (String x : t.implementsTypes) out.append(x).append(" <|.. ").append(t.name).append("\n");
+                continue;
             }
-            t.fields.forEach(f -> sb.append("  ").append(f).append("\n"));
-            t.methods.forEach(m -> sb.append("  ").append(m).append("\n"));
-            sb.append("}\n");
-            t.extendsTypes.forEach(x -> sb.append(x).append(" <|-- ").append(t.name).append("\n"));
-            t.implementsTypes.forEach(x -> sb.append(x).append(" <|.. ").append(t.name).append("\n"));
-        });
-        model.associations.forEach(a -> sb.append(a[0]).append(" --> ").append(a[1]).append("\n"));
-        sb.append("@enduml\n");
+            appendType(t, out);
+        }
+        for (String[] a : model.associations) out.append(a[0]).append(" --> ").append(a[1]).append("\n");
+        out.append("@enduml\n");
+    }
+
+    /**
+     * Streams a diagram whose model never exists as a whole: {@code types} in diagram order, then
+     * {@code associations} as {@code [from, to, ...]}. With the same types and edges the output is identical to
+     * {@link #render(UmlModel, Appendable)}; both iterators are consumed exactly once.
+     */
+    public void render(Iterator<UmlModel.UmlType> types, Iterator<String[]> associations, Appendable out) throws IOException {
+        out.append("@startuml\n");
+        out.append("skinparam classAttributeIconSize 0\n");
+        while (types.hasNext()) appendType(types.next(), out);
+        while (associations.hasNext()) {
+            String[] a = associations.next();
+            out.append(a[0]).append(" --> ").append(a[1]).append("\n");
+        }
+        out.append("@enduml\n");
+    }
+
+    private static void appendType(UmlModel.UmlType t, Appendable out) throws IOException {
+        switch (t.kind) {
+            case INTERFACE -> out.append("interface ").append(t.name).append(" {\n");
+            case ENUM      -> out.append("enum ").append(t.name).append(" {\n");
+            case RECORD    -> out.append("class ").append(t.name).append(" <<record>> {\n");
+            default        -> out.append("class ").append(t.name).append(" {\n");
+        }
+        for (String f : t.fields) out.append("  ").append(f).append("\n");
+        for (String m : t.methods) out.append("  ").append(m).append("\n");
+        out.append("}\n");
+        for (String x : t.extendsTypes) out.append(x).append(" <|-- ").append(t.name).append("\n");
+        for (String x : t.implementsTypes) out.append(x).append(" <|.. ").append(t.name).append("\n");
+    }
+
+    public String toPlantUml(CompactModel model) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            render(model, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         return sb.toString();
     }
+
+    /**
+     * Same output as {@link #render(UmlModel, Appendable)}, read straight from the compact tables. Types whose simple
+     * name is shared by another package are written with their qualified name.
+     */
+    public void render(CompactModel model, Appendable out) throws IOException {
+        out.append("@startuml\n");
+        out.append("skinparam classAttributeIconSize 0\n");
+        for (int t = 0; t < model.typeCount(); t++) {
+            if (model.isExternal(t)) continue;
+            String name = model.displayName(t);
+            switch (model.kind(t)) {
+                case INTERFACE -> out.append("interface ").append(name).append(" {\n");
+                case ENUM      -> out.append("enum ").append(name).append(" {\n");
+                case RECORD    -> out.append("class ").append(name).append(" <<record>> {\n");
+                default        -> out.append("class ").append(name).append(" {\n");
+            }
+            for (int i = 0; i < model.fieldCount(t); i++) out.append("  ").append(model.field(t, i)).append("\n");
+            for (int i = 0; i < model.methodCount(t); i++) out.append("  ").append(model.method(t, i)).append("\n");
+            out.append("}\n");
+            for (int i = 0; i < model.edgeCount(CompactModel.EdgeKind.EXTENDS, t); i++) {
+                out.append(model.displayName(model.edgeTarget(CompactModel.EdgeKind.EXTENDS, t, i))).append(" <|-- ").append(name).append("\n");
+            }
+            for (int i = 0; i < model.edgeCount(CompactModel.EdgeKind.IMPLEMENTS, t); i++) {
+                out.append(model.displayName(model.edgeTarget(CompactModel.EdgeKind.IMPLEMENTS, t, i))).append(" <|.. ").append(name).append("\n");
+            }
+        }
+        for (int t = 0; t < model.typeCount(); t++) {
+            for (int i = 0; i < model.edgeCount(CompactModel.EdgeKind.ASSOCIATION, t); i++) {
+                out.append(model.displayName(t)).append(" --> ")
+                        .append(model.displayName(model.edgeTarget(CompactModel.EdgeKind.ASSOCIATION, t, i))).append("\n");
+            }
+        }
+        out.append("@enduml\n");
+    }
+
+    public void render(CompactModel model, Writer out) throws IOException {
+        Writer w = out instanceof BufferedWriter ? out : new BufferedWriter(out, BUFFER_SIZE);
+        render(model, (Appendable) w);
+        w.flush();
+    }
+
+    /** Renders through a buffer and flushes {@code out}; the writer is left open. */
+    public void render(UmlModel model, Writer out) throws IOException {
+        Writer w = out instanceof BufferedWriter ? out : new BufferedWriter(out, BUFFER_SIZE);
+        render(model, (Appendable) w);
+        w.flush();
+    }
+
+    /** Renders as UTF-8 into {@code channel}; the channel is left open. */
+    public void render(UmlModel model, WritableByteChannel channel) throws IOException {
+        Writer w = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE);
+        render(model, w);
+    }
 }
@@ -0,0 +1,152 @@
+package app.visualizer.render;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Line and relationship index over PlantUML text, built in one pass over the text (the {@link Builder} is an
+ * {@link Appendable}, so it can be fed in pieces). Afterwards every lookup is O(1) or a binary search: where line
+ * {@code n} starts, which lines use a given arrow, and what the relationship on a line is.
+ */
+public final class PumlIndex {
+    /** One {@code left arrow right} line, e.g. {@code Base <|-- Impl}. */
+    public record Relationship(String left, String arrow, String right) {
+    }
+
+    private static final Pattern RELATIONSHIP =
+            Pattern.compile("(\\w+)\\s*(<\\|--|<\\|\\.\\.|<--|-->|\\*--|o--|<\\.\\.|\\.\\.>|--\\*|--o)\\s*(\\w+)");
+    private static final int[] NONE = new int[0];
+    private static final String[] DECLARATIONS = {"class ", "interface ", "enum "};
+
+    private final int length;
+    private final int[] lineStarts;
+    private final int lineCount;
+    private final Map<String, int[]> linesByArrow;
+    private final Map<Integer, Relationship> relationships;
+    private final Map<String, Integer> declarations;
+
+    private PumlIndex(int length, int[] lineStarts, int lineCount, Map<String, int[]> linesByArrow,
+                      Map<Integer, Relationship> relationships, Map<String, Integer> declarations) {
+        this.length = length;
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+        this.linesByArrow = linesByArrow;
+        this.relationships = relationships;
+        this.declarations = declarations;
+    }
+
+    /** Indexes text that already exists. */
+    public static PumlIndex of(CharSequence text) {
+        Builder b = new Builder();
+        b.append(text);
+        return b.build();
+    }
+
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /** Offset of the first character of {@code line}. */
+    public int lineStart(int line) {
+        return lineStarts[line];
+    }
+
+    /** Offset just past the last character of {@code line}, excluding its line break. */
+    public int lineEnd(int line) {
+        return line + 1 < lineCount ? lineStarts[line + 1] - 1 : length;
+    }
+
+    /** The line containing character {@code offset}. */
+    public int lineOf(int offset) {
+        int i = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /** Lines whose relationship uses {@code arrow} (e.g. {@code <|--}), in order; never null. */
+    public int[] linesWith(String arrow) {
+        return linesByArrow.getOrDefault(arrow, NONE);
+    }
+
+    /** @return the relationship on {@code line}, or null if it is not a relationship line */
+    public Relationship relationship(int line) {
+        return relationships.get(line);
+    }
+
+    /** Number of declarations of a kind: {@code class}, {@code interface}, {@code enum}. */
+    public int declarations(String kind) {
+        return declarations.getOrDefault(kind, 0);
+    }
+
+    /** Records line starts and classifies each completed line. Only the current line is buffered. */
+    public static final class Builder implements Appendable {
+        private final StringBuilder line = new StringBuilder();
+        private final Map<String, List<Integer>> byArrow = new LinkedHashMap<>();
+        private final Map<Integer, Relationship> relationships = new HashMap<>();
+        private final Map<String, Integer> declarations = new HashMap<>();
+        private int[] lineStarts = new int[1024];
+        private int lineCount = 1; // line 0 starts at offset 0
+        private int length;
+
+        @Override
+        public Builder append(CharSequence csq) {
+            return append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Builder append(CharSequence csq, int start, int end) {
+            for (int i = start; i < end; i++) take(csq.charAt(i));
+            return this;
+        }
+
+        @Override
+        public Builder append(char c) {
+            take(c);
+            return this;
+        }
+
+        public PumlIndex build() {
+            if (!line.isEmpty()) classify(lineCount - 1);
+            Map<String, int[]> arrows = new LinkedHashMap<>();
+            byArrow.forEach((arrow, lines) -> arrows.put(arrow, lines.stream().mapToInt(Integer::intValue).toArray()));
+            return new PumlIndex(length, lineStarts, lineCount, arrows, relationships, declarations);
+        }
+
+        private void take(char c) {
+            length++;
+            if (c != '\n') {
+                line.append(c);
+                return;
+            }
+            classify(lineCount - 1);
+            line.setLength(0);
+            if (lineCount == lineStarts.length) lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+            lineStarts[lineCount++] = length;
+        }
+
+        // members are indented and never relationships, so most lines are rejected on their first character
+        private void classify(int lineNo) {
+            if (line.isEmpty() || Character.isWhitespace(line.charAt(0))) return;
+            for (String kind : DECLARATIONS) {
+                if (startsWith(kind)) {
+                    declarations.merge(kind.trim(), 1, Integer::sum);
+                    return;
+                }
+            }
+            Matcher m = RELATIONSHIP.matcher(line);
+            if (m.find()) {
+                Relationship r = new Relationship(m.group(1), m.group(2), m.group(3));
+                relationships.put(lineNo, r);
+                byArrow.computeIfAbsent(r.arrow(), k -> new ArrayList<>()).add(lineNo);
+            }
+        }
+
+        private boolean startsWith(String prefix) {
+            if (line.length() < prefix.length()) return false;
+            for (int i = 0; i < prefix.length(); i++) {
+                if (line.charAt(i) != prefix.charAt(i)) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package app.visualizer.render;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of rendered diagrams: the key is a SHA-256 of the PlantUML text plus the output format, so
+ * identical text is laid out only once no matter where it came from. An LRU memory tier is bounded by total bytes;
+ * the optional disk tier ({@code <key>.png|svg} files) survives restarts and is trimmed oldest-first.
+ */
+public class RenderCache {
+    private final long maxMemoryBytes;
+    private final Path diskDir;
+    private final long maxDiskBytes;
+    private final ImageRenderer renderer;
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public RenderCache(long maxMemoryBytes) {
+        this(maxMemoryBytes, null, 0, new ImageRenderer());
+    }
+
+    /** @param diskDir directory for the disk tier, or {@code null} for memory only */
+    public RenderCache(long maxMemoryBytes, Path diskDir, long maxDiskBytes, ImageRenderer renderer) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.diskDir = diskDir;
+        this.maxDiskBytes = maxDiskBytes;
+        this.renderer = renderer;
+    }
+
+    /** Returns the rendered image, laying it out only if neither tier has it. */
+    public byte[] render(String pumlText, ImageRenderer.Format format) throws IOException {
+        String key = key(pumlText, format);
+        byte[] bytes = fromMemory(key);
+        if (bytes == null && diskDir != null) {
+            Path file = diskDir.resolve(key);
+            if (Files.exists(file)) {
+                bytes = Files.readAllBytes(file);
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis())); // disk LRU order
+                toMemory(key, bytes);
+            }
+        }
+        if (bytes != null) {
+            hits.incrementAndGet();
+            return bytes;
+        }
+
+        misses.incrementAndGet();
+        bytes = renderer.render(pumlText, format);
+        toMemory(key, bytes);
+        if (diskDir != null) {
+            toDisk(key, bytes);
+        }
+        return bytes;
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private synchronized byte[] fromMemory(String key) {
+        return memory.get(key);
+    }
+
+    private synchronized void toMemory(String key, byte[] bytes) {
+        if (bytes.length > maxMemoryBytes) return; // would evict everything else
+        byte[] old = memory.put(key, bytes);
+        if (old != null) memoryBytes -= old.length;
+        memoryBytes += bytes.length;
+        Iterator<Map.Entry<String, byte[]>> it = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && it.hasNext()) {
+            memoryBytes -= it.next().getValue().length;
+            it.remove();
+        }
+    }
+
+    private void toDisk(String key, byte[] bytes) {
+        try {
+            Files.createDirectories(diskDir);
+            Path tmp = Files.createTempFile(diskDir, key, ".tmp");
+            Files.write(tmp, bytes);
+            Files.move(tmp, diskDir.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            trimDisk();
+        } catch (IOException e) {
+            System.err.println("Render cache write failed: " + e.getMessage()); // the disk tier is best-effort
+        }
+    }
+
+    private synchronized void trimDisk() throws IOException {
+        if (maxDiskBytes <= 0) return;
+        List<Path> files;
+        try (Stream<Path> s = Files.list(diskDir)) {
+            files = s.filter(p -> !p.toString().endsWith(".tmp")).toList();
+        }
+        long total = 0;
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path p : files) {
+            total += Files.size(p);
+            modified.put(p, Files.getLastModifiedTime(p).toMillis());
+        }
+        if (total <= maxDiskBytes) return;
+        List<Path> oldestFirst = new ArrayList<>(files);
+        oldestFirst.sort(Comparator.comparingLong(modified::get));
+        for (Path p : oldestFirst) {
+            if (total <= maxDiskBytes) break;
+            total -= Files.size(p);
+            Files.deleteIfExists(p);
+        }
+    }
+
+    private static String key(String pumlText, ImageRenderer.Format format) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(pumlText.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest) + "." + format.extension;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
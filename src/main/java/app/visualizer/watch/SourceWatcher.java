@@ -0,0 +1,136 @@
+package app.visualizer.watch;
+
+import app.visualizer.parse.SourceWalker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a source tree with a {@link WatchService} and reports changed {@code .java} files and directories in
+ * debounced batches: a batch is delivered once no new event has arrived for the debounce interval, so a burst of
+ * saves (or a branch switch) triggers one regeneration instead of dozens.
+ * <p>
+ * Directories the {@link SourceWalker} would skip ({@code .git}, {@code target/}, {@code node_modules/}, ignored
+ * folders) are not registered at all, so build output does not eat into the platform's watch limit.
+ */
+public class SourceWatcher implements Closeable {
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+
+    public interface Listener {
+        void onChange(Set<Path> changed) throws Exception;
+    }
+
+    private final Path root;
+    private final SourceWalker walker;
+    private final long debounceMillis;
+    private final Listener listener;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    /** Watches {@code root}, pruning the walker's default excludes. */
+    public SourceWatcher(Path root, long debounceMillis, Listener listener) throws IOException {
+        this(root, new SourceWalker(1), debounceMillis, listener);
+    }
+
+    /** Watches {@code root}, pruning whatever {@code walker} excludes. */
+    public SourceWatcher(Path root, SourceWalker walker, long debounceMillis, Listener listener) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.walker = walker;
+        this.debounceMillis = debounceMillis;
+        this.listener = listener;
+        this.watchService = this.root.getFileSystem().newWatchService();
+        registerTree(this.root);
+        this.thread = new Thread(this::run, "uml-source-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /** Blocks until the watcher is closed. */
+    public void join() throws InterruptedException {
+        thread.join();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watchService.close();
+    }
+
+    private void registerTree(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException {
+                if (walker.isExcluded(root, d)) return FileVisitResult.SKIP_SUBTREE;
+                keys.put(d.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), d);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE; // vanished while walking
+            }
+        });
+    }
+
+    private void run() {
+        Set<Path> pending = new LinkedHashSet<>();
+        try {
+            while (!closed) {
+                WatchKey key = pending.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    // quiet period elapsed: flush the batch
+                    Set<Path> batch = new LinkedHashSet<>(pending);
+                    pending.clear();
+                    deliver(batch);
+                    continue;
+                }
+
+                Path dir = keys.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW || dir == null) {
+                        pending.add(root); // events were lost: rescan everything
+                        continue;
+                    }
+                    Path child = dir.resolve((Path) event.context());
+                    boolean isDir = Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS);
+                    if (event.kind() == ENTRY_CREATE && isDir) {
+                        try {
+                            registerTree(child);
+                        } catch (IOException e) {
+                            System.err.println("Cannot watch " + child + ": " + e.getMessage());
+                        }
+                    }
+                    if (child.toString().endsWith(".java") || isDir || event.kind() == ENTRY_DELETE) {
+                        pending.add(child);
+                    }
+                }
+                if (!key.reset()) {
+                    keys.remove(key);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private void deliver(Set<Path> batch) {
+        try {
+            listener.onChange(batch);
+        } catch (Exception e) {
+            System.err.println("Watch update failed: " + e.getMessage());
+        }
+    }
+}
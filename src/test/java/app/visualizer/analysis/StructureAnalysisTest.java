@@ -0,0 +1,132 @@
+package app.visualizer.analysis;
+
+import app.visualizer.model.CompactModel.EdgeKind;
+import app.visualizer.model.UmlModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** {@link StructureAnalysis} on small hand-built models; type ids are declaration order. */
+class StructureAnalysisTest {
+    private static final Set<EdgeKind> ALL = EnumSet.allOf(EdgeKind.class);
+
+    @Test
+    void typeCycleSharesOneLayer() {
+        UmlModel model = new UmlModel();
+        type(model, "p", "A", "java.lang.Object"); // external supertype, ignored
+        type(model, "p", "B");
+        type(model, "p", "C");
+        type(model, "p", "D");
+        type(model, "p", "E");
+        associate(model, "A", "B");
+        associate(model, "B", "C");
+        associate(model, "C", "A");
+        associate(model, "D", "A");
+        associate(model, "D", "B");
+
+        StructureAnalysis analysis = StructureAnalysis.of(model, ALL);
+        assertEquals(1, analysis.typeCycles().size());
+        assertArrayEquals(new int[] {0, 1, 2}, analysis.typeCycles().get(0));
+        for (int t = 0; t < 3; t++) assertEquals(0, analysis.typeLayer(t), "cycle member " + t);
+        assertEquals(1, analysis.typeLayer(3));
+        assertEquals(0, analysis.typeLayer(4));
+        assertEquals(2, analysis.typeLayerCount());
+        assertEquals(2, analysis.fanIn(0));
+        assertEquals(1, analysis.fanOut(0));
+        assertEquals(2, analysis.fanOut(3));
+        assertEquals(5, analysis.typeEdgeCount());
+        assertEquals(List.of(), analysis.packageCycles(), "edges inside one package");
+    }
+
+    @Test
+    void packageCycleFromAcyclicTypeEdges() {
+        UmlModel model = new UmlModel();
+        type(model, "p", "A");
+        type(model, "q", "B");
+        type(model, "q", "C", "D");
+        type(model, "p", "D");
+        associate(model, "A", "B");
+
+        StructureAnalysis analysis = StructureAnalysis.of(model, ALL);
+        assertEquals(List.of(), analysis.typeCycles());
+        assertEquals(1, analysis.typeLayer(0));
+        assertEquals(1, analysis.typeLayer(2));
+
+        assertEquals(2, analysis.packageCount());
+        assertEquals("p", analysis.packageName(analysis.packageOf(0)));
+        assertEquals("q", analysis.packageName(analysis.packageOf(1)));
+        assertEquals(1, analysis.packageCycles().size());
+        assertArrayEquals(new int[] {0, 1}, analysis.packageCycles().get(0));
+        assertEquals(0, analysis.packageLayer(0));
+        assertEquals(0, analysis.packageLayer(1));
+        assertEquals(1, analysis.packageLayerCount());
+        assertEquals(0.5, analysis.instability(0));
+
+        // without the extends edge only p -> q is left
+        StructureAnalysis associations = StructureAnalysis.of(model, EnumSet.of(EdgeKind.ASSOCIATION));
+        assertEquals(List.of(), associations.packageCycles());
+        assertEquals(1, associations.packageLayer(0));
+        assertEquals(0, associations.packageLayer(1));
+        assertEquals(1.0, associations.instability(0));
+        assertEquals(0.0, associations.instability(1));
+    }
+
+    @Test
+    void chainLayersCountUpFromTheBottom() {
+        UmlModel model = new UmlModel();
+        type(model, "p", "T4");
+        for (int i = 3; i >= 0; i--) type(model, "p", "T" + i, "T" + (i + 1));
+        associate(model, "T4", "T0"); // an association back to the top, so only extends edges form the chain
+
+        StructureAnalysis analysis = StructureAnalysis.of(model, EnumSet.of(EdgeKind.EXTENDS));
+        assertEquals(5, analysis.typeLayerCount());
+        for (int id = 0; id < 5; id++) {
+            int i = 4 - id;
+            assertEquals(4 - i, analysis.typeLayer(id), "T" + i);
+        }
+        assertEquals(List.of(), analysis.typeCycles());
+
+        StructureAnalysis all = StructureAnalysis.of(model, ALL);
+        assertEquals(1, all.typeLayerCount());
+        assertEquals(1, all.typeCycles().size());
+        assertEquals(5, all.typeCycles().get(0).length);
+    }
+
+    @Test
+    void deepChainDoesNotOverflowTheStack() {
+        int n = 100_000;
+        UmlModel model = new UmlModel();
+        for (int i = 0; i < n; i++) type(model, "deep", "T" + i);
+        for (int i = 0; i + 1 < n; i++) associate(model, "T" + i, "T" + (i + 1));
+
+        StructureAnalysis chain = StructureAnalysis.of(model, ALL);
+        assertEquals(n, chain.typeLayerCount());
+        assertEquals(n - 1, chain.typeLayer(0));
+        assertEquals(0, chain.typeLayer(n - 1));
+        assertEquals(List.of(), chain.typeCycles());
+
+        associate(model, "T" + (n - 1), "T0");
+        StructureAnalysis ring = StructureAnalysis.of(model, ALL);
+        assertEquals(1, ring.typeLayerCount());
+        assertEquals(1, ring.typeCycles().size());
+        assertEquals(n, ring.typeCycles().get(0).length);
+    }
+
+    private static void type(UmlModel model, String pkg, String name, String... supertypes) {
+        UmlModel.UmlType t = new UmlModel.UmlType();
+        t.name = name;
+        t.packageName = pkg;
+        t.qualifiedName = pkg + "." + name;
+        t.kind = UmlModel.UmlType.Kind.CLASS;
+        t.extendsTypes.addAll(List.of(supertypes));
+        model.types.put(name, t);
+    }
+
+    private static void associate(UmlModel model, String from, String to) {
+        model.associations.add(new String[] {from, to, ""});
+    }
+}
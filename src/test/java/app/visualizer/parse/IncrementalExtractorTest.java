@@ -0,0 +1,112 @@
+package app.visualizer.parse;
+
+import app.visualizer.model.UmlModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** {@link IncrementalExtractor#update} must leave the model a fresh {@link JavaExtractor#extract} would build. */
+class IncrementalExtractorTest {
+    private static final int NAMES = 12; // few simple names over many files, so most of them shadow one another
+
+    @Test
+    void editsAdditionsAndDeletionsMatchFullExtraction(@TempDir Path root) throws IOException {
+        Random rnd = new Random(3);
+        for (int i = 0; i < 40; i++) write(root, "p" + (i % 4), i, rnd);
+        IncrementalExtractor incremental = new IncrementalExtractor(new JavaExtractor(2), root);
+        incremental.build();
+        assertSameModel(root, incremental.getModel(), "build");
+
+        int next = 40;
+        for (int step = 0; step < 60; step++) {
+            List<Path> files = sources(root);
+            List<Path> changed = new ArrayList<>();
+            switch (rnd.nextInt(4)) {
+                case 0 -> { // edit, possibly renaming the declared type
+                    Path f = files.get(rnd.nextInt(files.size()));
+                    Files.writeString(f, source(f.getParent().getFileName().toString(), rnd));
+                    changed.add(f);
+                }
+                case 1 -> changed.add(write(root, "p" + rnd.nextInt(6), next++, rnd)); // may be a new package
+                case 2 -> {
+                    Path f = files.get(rnd.nextInt(files.size()));
+                    Files.delete(f);
+                    changed.add(f);
+                }
+                default -> { // a new folder, reported as a directory like a watcher does
+                    Path dir = root.resolve("d" + step).resolve("q");
+                    for (int k = 0; k < 3; k++) write(dir, "", next++, rnd);
+                    changed.add(root.resolve("d" + step));
+                }
+            }
+            incremental.update(changed);
+            assertSameModel(root, incremental.getModel(), "step " + step + " " + changed);
+        }
+    }
+
+    @Test
+    void savingAShadowedDeclarationKeepsTheLaterOne(@TempDir Path root) throws IOException {
+        Path a = Files.createDirectories(root.resolve("a")).resolve("Foo.java");
+        Path b = Files.createDirectories(root.resolve("b")).resolve("Foo.java");
+        Files.writeString(a, "package a;\nclass Foo { int early; }\n");
+        Files.writeString(b, "package b;\nclass Foo { int late; }\n");
+        IncrementalExtractor incremental = new IncrementalExtractor(new JavaExtractor(1), root);
+        incremental.build();
+
+        Files.writeString(a, "package a;\nclass Foo { int early; int edited; }\n");
+        incremental.update(List.of(a));
+        assertSameModel(root, incremental.getModel(), "after editing the shadowed file");
+    }
+
+    private static void assertSameModel(Path root, UmlModel actual, String when) throws IOException {
+        UmlModel expected = new JavaExtractor(1).extract(root);
+        assertEquals(new ArrayList<>(expected.types.keySet()), new ArrayList<>(actual.types.keySet()), when);
+        for (UmlModel.UmlType e : expected.types.values()) {
+            UmlModel.UmlType a = actual.types.get(e.name);
+            assertEquals(e.qualifiedName, a.qualifiedName, when + ": " + e.name);
+            assertEquals(e.kind, a.kind, when + ": " + e.name);
+            assertEquals(e.fields, a.fields, when + ": " + e.name);
+            assertEquals(e.methods, a.methods, when + ": " + e.name);
+            assertEquals(e.extendsTypes, a.extendsTypes, when + ": " + e.name);
+        }
+        assertEquals(edges(expected), edges(actual), when);
+    }
+
+    private static List<String> edges(UmlModel model) {
+        return model.associations.stream().map(a -> String.join(" -> ", a)).toList();
+    }
+
+    private static List<Path> sources(Path root) throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            return walk.filter(p -> p.toString().endsWith(".java")).sorted().toList();
+        }
+    }
+
+    // one file per id, so two files may declare the same simple name
+    private static Path write(Path dir, String pkg, int id, Random rnd) throws IOException {
+        Path folder = Files.createDirectories(pkg.isEmpty() ? dir : dir.resolve(pkg));
+        Path file = folder.resolve("F" + id + ".java");
+        Files.writeString(file, source(folder.getFileName().toString(), rnd));
+        return file;
+    }
+
+    private static String source(String pkg, Random rnd) {
+        StringBuilder src = new StringBuilder("package ").append(pkg).append(";\n\nimport java.util.*;\n\n");
+        src.append("class T").append(rnd.nextInt(NAMES));
+        if (rnd.nextBoolean()) src.append(" extends T").append(rnd.nextInt(NAMES));
+        src.append(" {\n");
+        for (int f = 0, n = rnd.nextInt(4); f < n; f++) {
+            src.append("    List<T").append(rnd.nextInt(NAMES + 3)).append("> f").append(f).append(";\n");
+        }
+        return src.append("    void v").append(rnd.nextInt(100)).append("() { }\n}\n").toString();
+    }
+}
@@ -0,0 +1,115 @@
+package app.visualizer.parse;
+
+import app.visualizer.model.UmlModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** {@link JavaExtractor#setShallow}: the body-stripping pre-pass must not change the extracted model. */
+class ShallowParseTest {
+    // member bodies the scanner has to skip without losing its place; each one is valid Java
+    private static final String[] BODIES = {
+            "return null;",
+            "String s = \"{ not a block }\"; char c = '{'; char d = '}'; return null;",
+            "String t = \"\\\"{\\\"\" + '\\'' + \"}\"; return null;",
+            "// a } in a comment\n        /* and { in another */ return null;",
+            "Runnable r = () -> { int x = 1; }; r.run(); return null;",
+            "Object o = new Object() { @Override public String toString() { return \"}\"; } }; return null;",
+            "class Local { int v; } return new Local() == null ? null : null;",
+            "int[] a = {1, 2, 3}; if (a.length > 2) { return null; } else { return null; }",
+            "Class<?> k = String.class; Object e = java.util.List.class; return null;",
+            "switch (n) { case 1: { return null; } default: { } } return null;",
+    };
+
+    @Test
+    void exampleSourcesMatchFullParse() throws IOException {
+        assertSameModel(Paths.get("example-src"));
+    }
+
+    @Test
+    void syntheticCorpusMatchesFullParse(@TempDir Path dir) throws IOException {
+        generate(dir, 300, new Random(7));
+        UmlModel full = assertSameModel(dir);
+        for (int i = 0; i < 300; i++) assertTrue(full.types.containsKey("C" + i), "C" + i + " did not parse");
+    }
+
+    @Test
+    void cacheKeepsShallowAndFullResultsApart(@TempDir Path dir) throws IOException {
+        Path src = Files.createDirectories(dir.resolve("src"));
+        // only parses once its (broken) method body is stripped
+        Files.writeString(src.resolve("Broken.java"), "class Broken {\n    int size;\n    void run() { int = ; }\n}\n");
+
+        JavaExtractor shallow = new JavaExtractor(1);
+        shallow.setShallow(true);
+        shallow.setCache(ParseCache.open(dir.resolve("cache")));
+        assertTrue(shallow.extract(src).types.containsKey("Broken"));
+
+        JavaExtractor full = new JavaExtractor(1);
+        full.setCache(ParseCache.open(dir.resolve("cache")));
+        assertFalse(full.extract(src).types.containsKey("Broken"), "a full run must not reuse shallow results");
+    }
+
+    /** @return the full model */
+    private static UmlModel assertSameModel(Path root) throws IOException {
+        UmlModel full = new JavaExtractor(2).extract(root);
+        JavaExtractor extractor = new JavaExtractor(2);
+        extractor.setShallow(true);
+        UmlModel shallow = extractor.extract(root);
+
+        assertFalse(full.types.isEmpty(), "nothing extracted from " + root);
+        assertEquals(new ArrayList<>(full.types.keySet()), new ArrayList<>(shallow.types.keySet()));
+        for (UmlModel.UmlType f : full.types.values()) {
+            UmlModel.UmlType s = shallow.types.get(f.name);
+            assertEquals(f.kind, s.kind, f.name);
+            assertEquals(f.packageName, s.packageName, f.name);
+            assertEquals(f.qualifiedName, s.qualifiedName, f.name);
+            assertEquals(f.fields, s.fields, f.name);
+            assertEquals(f.methods, s.methods, f.name);
+            assertEquals(f.extendsTypes, s.extendsTypes, f.name);
+            assertEquals(f.implementsTypes, s.implementsTypes, f.name);
+        }
+        assertEquals(edges(full), edges(shallow));
+        return full;
+    }
+
+    private static List<String> edges(UmlModel model) {
+        return model.associations.stream().map(a -> String.join(" -> ", a)).toList();
+    }
+
+    private static void generate(Path root, int types, Random rnd) throws IOException {
+        for (int i = 0; i < types; i++) {
+            String pkg = "gen.p" + (i % 7);
+            String parent = i > 0 && rnd.nextBoolean() ? " extends C" + rnd.nextInt(i) : "";
+            StringBuilder src = new StringBuilder("package ").append(pkg).append(";\n\nimport java.util.*;\n");
+            for (int p = 0; p < 7; p++) src.append("import gen.p").append(p).append(".*;\n");
+            src.append("\n@SuppressWarnings({\"unused\", \"rawtypes\"})\npublic class C").append(i).append(parent)
+                    .append(" implements Comparable<C").append(i).append("> {\n");
+            src.append("    static final int[] TABLE = {1, 2, 3};\n");
+            src.append("    private List<Map<String, C").append(rnd.nextInt(types)).append(">> refs = new ArrayList<>() {{ add(null); }};\n");
+            src.append("    protected Optional<C").append(rnd.nextInt(types)).append("> next; // { stray brace\n");
+            src.append("    static { System.getProperty(\"{\"); }\n");
+            src.append("    { refs.clear(); }\n\n");
+            src.append("    public C").append(i).append("() { super(); }\n\n");
+            for (int m = 0; m < 3; m++) {
+                src.append("    public <T extends Comparable<T>> C").append(rnd.nextInt(types)).append(" op").append(m)
+                        .append("(int n, List<? super T> sink) {\n        ")
+                        .append(BODIES[rnd.nextInt(BODIES.length)]).append("\n    }\n\n");
+            }
+            src.append("    @Override\n    public int compareTo(C").append(i).append(" o) { return 0; }\n\n");
+            src.append("    enum Mode { A { int x() { return 1; } }, B; int x() { return 0; } }\n\n");
+            src.append("    interface Nested").append(i).append(" { default void run() { } }\n");
+            src.append("}\n");
+            Path dir = Files.createDirectories(root.resolve(pkg.replace('.', '/')));
+            Files.writeString(dir.resolve("C" + i + ".java"), src);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package app.visualizer.parse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** {@link SourceWalker} must prune what git and the build would ignore, and keep sequential order when concurrent. */
+class SourceWalkerTest {
+    @Test
+    void gitignoreRulesAndBuildOutputArePruned(@TempDir Path root) throws IOException {
+        write(root, "pom.xml", "<project/>");
+        write(root, ".gitignore", String.join("\n",
+                "# comments and blank lines are skipped",
+                "",
+                "/Anchored.java",
+                "**/skip/**",
+                "Old*/",
+                "Secret*.java",
+                "!SecretKeep.java"));
+        touch(root, "Main.java", "Anchored.java",
+                "a/Anchored.java",                   // anchored to the root only
+                "a/deep/skip/x/Skipped.java",        // ** across directories
+                "a/OldApi.java", "a/OldStuff/Gone.java", // Old*/ matches directories only
+                "a/SecretX.java", "a/SecretKeep.java",   // ! re-includes
+                "target/T.java", "build/B.java",     // build output of the root module
+                "src/main/java/com/build/Pkg.java",  // a package named build is kept
+                "lib/target/Kept.java",              // lib is no module, so its target is a package
+                ".git/Vcs.java", "node_modules/x/N.java");
+        write(root, "sub/pom.xml", "<project/>");
+        write(root, "sub/.gitignore", "!SecretSub.java\nLocal.java\n");
+        touch(root, "sub/SecretSub.java",            // the nearer .gitignore has the last word
+                "sub/Local.java", "sub/x/Local.java", "sub/y/Y.java",
+                "sub/target/T2.java", "sub/build/B2.java");
+
+        List<String> expected = List.of(
+                "Main.java",
+                "a/Anchored.java",
+                "a/OldApi.java",
+                "a/SecretKeep.java",
+                "lib/target/Kept.java",
+                "src/main/java/com/build/Pkg.java",
+                "sub/SecretSub.java",
+                "sub/y/Y.java");
+        assertEquals(expected, relative(root, new SourceWalker(1).list(root)));
+        assertEquals(expected, relative(root, new SourceWalker(4).list(root)));
+    }
+
+    @Test
+    void gitignoreCanBeSwitchedOff(@TempDir Path root) throws IOException {
+        write(root, ".gitignore", "*.java\n");
+        touch(root, "A.java", "p/B.java", ".git/C.java");
+        SourceWalker walker = new SourceWalker(1);
+        walker.setUseGitignore(false);
+        assertEquals(List.of("A.java", "p/B.java"), relative(root, walker.list(root)));
+    }
+
+    @Test
+    void concurrentWalkKeepsSequentialOrder(@TempDir Path dir) throws IOException {
+        List<Path> roots = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            Path root = Files.createDirectories(dir.resolve("root" + r));
+            roots.add(root);
+            write(root, "pom.xml", "<project/>");
+            for (int m = 0; m < 5; m++) {
+                write(root, "m" + m + "/pom.xml", "<project/>");
+                for (int n = 0; n < 3; n++) {
+                    write(root, "m" + m + "/n" + n + "/build.gradle", "");
+                    for (int f = 0; f < 4; f++) touch(root, "m" + m + "/n" + n + "/p" + f + "/F" + f + ".java");
+                    touch(root, "m" + m + "/n" + n + "/target/Out.java");
+                }
+                touch(root, "m" + m + "/Top" + m + ".java");
+            }
+        }
+
+        List<Path> sequential = new SourceWalker(1).list(roots);
+        assertEquals(3 * 5 * (3 * 4 + 1), sequential.size());
+        for (int threads : new int[] {2, 8}) {
+            for (int run = 0; run < 5; run++) {
+                assertEquals(sequential, new SourceWalker(threads).list(roots), threads + " threads");
+            }
+        }
+    }
+
+    private static List<String> relative(Path root, List<Path> files) {
+        // walkFileTree order depends on the file system, so compare membership here and order in the test above
+        return files.stream().map(f -> root.relativize(f).toString().replace('\\', '/')).sorted().toList();
+    }
+
+    private static void touch(Path root, String... files) throws IOException {
+        for (String f : files) {
+            String name = f.substring(f.lastIndexOf('/') + 1);
+            write(root, f, "class " + name.substring(0, name.length() - ".java".length()) + " { }\n");
+        }
+    }
+
+    private static void write(Path root, String file, String content) throws IOException {
+        Path path = root.resolve(file);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, content);
+    }
+}
@@ -0,0 +1,65 @@
+package app.visualizer.parse;
+
+import app.visualizer.render.PlantUmlRenderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** {@link SpillingExtractor} must write the diagram {@link JavaExtractor} plus {@link PlantUmlRenderer} would. */
+class SpillingExtractorTest {
+    @Test
+    void exampleSourcesMatchInMemoryExtraction(@TempDir Path spill) throws IOException {
+        assertSameDiagram(Paths.get("example-src"), spill, 1 << 12);
+    }
+
+    @Test
+    void tinyBudgetMatchesInMemoryExtraction(@TempDir Path dir) throws IOException {
+        Path src = Files.createDirectories(dir.resolve("src"));
+        generate(src, 200, new Random(11));
+        Path spill = Files.createDirectories(dir.resolve("spill"));
+
+        // every record spills on its own, so the sorters also go through grouped merges
+        SpillingExtractor.Result result = assertSameDiagram(src, spill, 1);
+        assertTrue(result.spilledRuns() > ExternalSorter.MAX_FAN_IN, result.spilledRuns() + " runs");
+        try (Stream<Path> left = Files.list(spill)) {
+            assertEquals(List.of(), left.toList(), "run files left behind");
+        }
+    }
+
+    private static SpillingExtractor.Result assertSameDiagram(Path root, Path spill, long budgetBytes) throws IOException {
+        String expected = new PlantUmlRenderer().toPlantUml(new JavaExtractor(2).extract(root));
+        SpillingExtractor spilling = new SpillingExtractor(new JavaExtractor(2), budgetBytes);
+        spilling.setTempDir(spill);
+        StringBuilder actual = new StringBuilder();
+        SpillingExtractor.Result result = spilling.extract(List.of(root), actual);
+        assertEquals(expected, actual.toString());
+        return result;
+    }
+
+    // same simple names in several packages (the last declaration wins) and fields that refer across them
+    private static void generate(Path root, int types, Random rnd) throws IOException {
+        for (int i = 0; i < types; i++) {
+            String pkg = "gen.p" + (i % 5);
+            String name = "T" + (i % 60);
+            StringBuilder src = new StringBuilder("package ").append(pkg).append(";\n\nimport java.util.*;\n\n");
+            src.append("public class ").append(name);
+            if (rnd.nextBoolean()) src.append(" extends T").append(rnd.nextInt(60));
+            src.append(" {\n");
+            for (int f = 0; f < 3; f++) {
+                src.append("    private List<T").append(rnd.nextInt(80)).append("> f").append(f).append(";\n");
+            }
+            src.append("    public T").append(rnd.nextInt(60)).append(" op(int n) { return null; }\n}\n");
+            Path dir = Files.createDirectories(root.resolve(pkg.replace('.', '/')).resolve("v" + i));
+            Files.writeString(dir.resolve(name + ".java"), src);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+@echo off
+rem Fast-start CLI for scripts. Build once with: mvn -Pfast-start -DskipTests package
+rem Extra JVM flags go in UML_JAVA_OPTS.
+setlocal
+set "DIR=%~dp0"
+set "JAR=%DIR%target\uml-visualizer-0.1.0.jar"
+set "JSA=%DIR%target\uml-visualizer.jsa"
+if not exist "%DIR%target\lib" (
+  echo Fast-start build missing; run: mvn -Pfast-start -DskipTests package 1>&2
+  exit /b 1
+)
+if exist "%JSA%" (
+  set "CDS=-XX:SharedArchiveFile=%JSA% -Xshare:auto"
+) else (
+  set "CDS=-XX:ArchiveClassesAtExit=%JSA%"
+)
+java %CDS% %UML_JAVA_OPTS% -jar "%JAR%" %*
@@ -0,0 +1,19 @@
+#!/usr/bin/env bash
+# Fast-start CLI for scripts. Build once with: mvn -Pfast-start -DskipTests package
+#  - thin jar + target/lib/: PlantUML and JavaFX jars are only opened when images are requested
+#  - AppCDS archive from a training run on example-src (recorded on first use if missing)
+# Extra JVM flags go in UML_JAVA_OPTS.
+set -euo pipefail
+DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+JAR="$DIR/target/uml-visualizer-0.1.0.jar"
+JSA="$DIR/target/uml-visualizer.jsa"
+if [ ! -d "$DIR/target/lib" ]; then
+  echo "Fast-start build missing; run: mvn -Pfast-start -DskipTests package" >&2
+  exit 1
+fi
+if [ -f "$JSA" ]; then
+  CDS=(-XX:SharedArchiveFile="$JSA" -Xshare:auto)
+else
+  CDS=(-XX:ArchiveClassesAtExit="$JSA")
+fi
+exec java "${CDS[@]}" ${UML_JAVA_OPTS:-} -jar "$JAR" "$@"